@@ -8,6 +8,8 @@ public class ProductAggregate {
     private final int weight;
     private final List<RecommendationSummary> recommendations;
     private final List<ReviewSummary> reviews;
+    private final Long totalRecommendations;
+    private final Long totalReviews;
     private final ServiceAddresses serviceAddresses;
 
     public ProductAggregate() {
@@ -16,16 +18,26 @@ public class ProductAggregate {
         weight = 0;
         recommendations = null;
         reviews = null;
+        totalRecommendations = null;
+        totalReviews = null;
         serviceAddresses = null;
     }
 
     public ProductAggregate(int productId, String name, int weight,
             List<RecommendationSummary> recommendations, List<ReviewSummary> reviews, ServiceAddresses serviceAddresses) {
+        this(productId, name, weight, recommendations, reviews, null, null, serviceAddresses);
+    }
+
+    public ProductAggregate(int productId, String name, int weight,
+            List<RecommendationSummary> recommendations, List<ReviewSummary> reviews,
+            Long totalRecommendations, Long totalReviews, ServiceAddresses serviceAddresses) {
         this.productId = productId;
         this.name = name;
         this.weight = weight;
         this.recommendations = recommendations;
         this.reviews = reviews;
+        this.totalRecommendations = totalRecommendations;
+        this.totalReviews = totalReviews;
         this.serviceAddresses = serviceAddresses;
     }
 
@@ -49,6 +61,14 @@ public class ProductAggregate {
         return reviews;
     }
 
+    public Long getTotalRecommendations() {
+        return totalRecommendations;
+    }
+
+    public Long getTotalReviews() {
+        return totalReviews;
+    }
+
     public ServiceAddresses getServiceAddresses() {
         return serviceAddresses;
     }
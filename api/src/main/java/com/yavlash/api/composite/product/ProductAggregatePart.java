@@ -0,0 +1,86 @@
+package com.yavlash.api.composite.product;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One element of a streamed composite product: the product itself, one of its recommendations or one of its reviews.
+ * Only the fields of the part's type are set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductAggregatePart {
+
+    public enum Type {
+        PRODUCT,
+        RECOMMENDATION,
+        REVIEW
+    }
+
+    private final Type type;
+    private final int productId;
+    private final String name;
+    private final Integer weight;
+    private final RecommendationSummary recommendation;
+    private final ReviewSummary review;
+    private final ServiceAddresses serviceAddresses;
+
+    public ProductAggregatePart() {
+        this.type = null;
+        this.productId = 0;
+        this.name = null;
+        this.weight = null;
+        this.recommendation = null;
+        this.review = null;
+        this.serviceAddresses = null;
+    }
+
+    private ProductAggregatePart(Type type, int productId, String name, Integer weight,
+            RecommendationSummary recommendation, ReviewSummary review, ServiceAddresses serviceAddresses) {
+        this.type = type;
+        this.productId = productId;
+        this.name = name;
+        this.weight = weight;
+        this.recommendation = recommendation;
+        this.review = review;
+        this.serviceAddresses = serviceAddresses;
+    }
+
+    public static ProductAggregatePart product(int productId, String name, int weight, ServiceAddresses serviceAddresses) {
+        return new ProductAggregatePart(Type.PRODUCT, productId, name, weight, null, null, serviceAddresses);
+    }
+
+    public static ProductAggregatePart recommendation(int productId, RecommendationSummary recommendation) {
+        return new ProductAggregatePart(Type.RECOMMENDATION, productId, null, null, recommendation, null, null);
+    }
+
+    public static ProductAggregatePart review(int productId, ReviewSummary review) {
+        return new ProductAggregatePart(Type.REVIEW, productId, null, null, null, review, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public RecommendationSummary getRecommendation() {
+        return recommendation;
+    }
+
+    public ReviewSummary getReview() {
+        return review;
+    }
+
+    public ServiceAddresses getServiceAddresses() {
+        return serviceAddresses;
+    }
+}
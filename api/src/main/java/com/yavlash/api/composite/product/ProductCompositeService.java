@@ -11,8 +11,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Tag(name = "ProductComposite", description = "REST API for composite product information.")
 public interface ProductCompositeService {
 
@@ -58,6 +61,51 @@ public interface ProductCompositeService {
             produces = "application/json")
     Mono<ProductAggregate> getProduct(@PathVariable int productId);
 
+    /**
+     * Sample usage: "curl -H "Accept: application/x-ndjson" $HOST:$PORT/product-composite/1/stream".
+     *
+     * @param productId Id of the product
+     * @return the product, followed by its recommendations and reviews as they arrive from the core services
+     */
+    @Operation(
+            summary = "${api.product-composite.stream-composite-product.description}",
+            description = "${api.product-composite.stream-composite-product.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "404", description = "${api.responseCodes.notFound.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @GetMapping(
+            value = "/product-composite/{productId}/stream",
+            produces = {"application/x-ndjson", "text/event-stream"})
+    Flux<ProductAggregatePart> streamProduct(@PathVariable int productId);
+
+    /**
+     * Sample usage, see below.
+     * <p>
+     * curl -X POST $HOST:$PORT/product-composite/batch \
+     * -H "Content-Type: application/json" -H "Accept: application/x-ndjson" \
+     * --data '[1,2,3]'
+     *
+     * @param productIds Ids of the products
+     * @return the composite product info of the products found, the cached ones at once and the others
+     * ordered by productId as soon as they are assembled
+     */
+    @Operation(
+            summary = "${api.product-composite.get-composite-products.description}",
+            description = "${api.product-composite.get-composite-products.notes}")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.responseCodes.ok.description}"),
+            @ApiResponse(responseCode = "400", description = "${api.responseCodes.badRequest.description}"),
+            @ApiResponse(responseCode = "422", description = "${api.responseCodes.unprocessableEntity.description}")
+    })
+    @PostMapping(
+            value = "/product-composite/batch",
+            consumes = "application/json",
+            produces = {"application/x-ndjson", "application/json"})
+    Flux<ProductAggregate> getProducts(@RequestBody List<Integer> productIds);
+
     /**
      * Sample usage: "curl -X DELETE $HOST:$PORT/product-composite/1".
      *
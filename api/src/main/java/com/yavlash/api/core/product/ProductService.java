@@ -2,8 +2,12 @@ package com.yavlash.api.core.product;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ProductService {
     Mono<Product> createProduct(Product body);
 
@@ -18,5 +22,16 @@ public interface ProductService {
             produces = "application/json")
     Mono<Product> getProduct(@PathVariable int productId);
 
+    /**
+     * Sample usage: "curl $HOST:$PORT/product/batch?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the products found ordered by productId, ids without a product are skipped
+     */
+    @GetMapping(
+            value = "/product/batch",
+            produces = "application/json")
+    Flux<Product> getProducts(@RequestParam(value = "productIds", required = true) List<Integer> productIds);
+
     Mono<Void> deleteProduct(int productId);
 }
\ No newline at end of file
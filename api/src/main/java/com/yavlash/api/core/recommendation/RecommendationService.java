@@ -5,20 +5,60 @@ import org.springframework.web.bind.annotation.RequestParam;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface RecommendationService {
     Mono<Recommendation> createRecommendation(Recommendation body);
 
     /**
-     * Sample usage: "curl $HOST:$PORT/recommendation?productId=1".
+     * Sample usage: "curl $HOST:$PORT/recommendation?productId=1&afterId=10&limit=20&fields=author,rate".
+     * <p>
+     * Recommendations are returned in recommendationId order. The next page starts after the last
+     * recommendationId of the previous one. With fields, only the listed fields are returned
+     * in addition to productId and recommendationId.
      *
      * @param productId Id of the product
+     * @param afterId   only recommendations with a higher recommendationId are returned
+     * @param limit     max number of recommendations to return, 0 means no limit
+     * @param fields    fields to return, all fields if not specified
      * @return the recommendations of the product
      */
     @GetMapping(
             value = "/recommendation",
             produces = "application/json")
     Flux<Recommendation> getRecommendations(
+            @RequestParam(value = "productId", required = true) int productId,
+            @RequestParam(value = "afterId", required = false, defaultValue = "0") int afterId,
+            @RequestParam(value = "limit", required = false, defaultValue = "0") int limit,
+            @RequestParam(value = "fields", required = false) List<String> fields);
+
+    default Flux<Recommendation> getRecommendations(int productId) {
+        return getRecommendations(productId, 0, 0, null);
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/recommendation/count?productId=1".
+     *
+     * @param productId Id of the product
+     * @return the number of recommendations of the product
+     */
+    @GetMapping(
+            value = "/recommendation/count",
+            produces = "application/json")
+    Mono<Long> countRecommendations(
             @RequestParam(value = "productId", required = true) int productId);
 
+    /**
+     * Sample usage: "curl $HOST:$PORT/recommendation/batch?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the recommendations of all the products, ordered by productId and recommendationId
+     */
+    @GetMapping(
+            value = "/recommendation/batch",
+            produces = "application/json")
+    Flux<Recommendation> getRecommendations(
+            @RequestParam(value = "productIds", required = true) List<Integer> productIds);
+
     Mono<Void> deleteRecommendations(int productId);
 }
\ No newline at end of file
@@ -7,6 +7,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ReviewController {
 
     @PostMapping(
@@ -15,15 +17,51 @@ public interface ReviewController {
     Mono<Review> createReview(@RequestBody Review body);
 
     /**
-     * Sample usage: "curl $HOST:$PORT/review?productId=1".
+     * Sample usage: "curl $HOST:$PORT/review?productId=1&afterId=10&limit=20&fields=author,subject".
+     * <p>
+     * Reviews are returned in reviewId order. The next page starts after the last reviewId of the
+     * previous one. With fields, only the listed fields are returned in addition to productId and reviewId.
      *
      * @param productId Id of the product
+     * @param afterId   only reviews with a higher reviewId are returned
+     * @param limit     max number of reviews to return, 0 means no limit
+     * @param fields    fields to return, all fields if not specified
      * @return the reviews of the product
      */
     @GetMapping(
             value = "/review",
             produces = "application/json")
-    Flux<Review> getReviews(@RequestParam(value = "productId", required = true) int productId);
+    Flux<Review> getReviews(
+            @RequestParam(value = "productId", required = true) int productId,
+            @RequestParam(value = "afterId", required = false, defaultValue = "0") int afterId,
+            @RequestParam(value = "limit", required = false, defaultValue = "0") int limit,
+            @RequestParam(value = "fields", required = false) List<String> fields);
+
+    default Flux<Review> getReviews(int productId) {
+        return getReviews(productId, 0, 0, null);
+    }
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/review/count?productId=1".
+     *
+     * @param productId Id of the product
+     * @return the number of reviews of the product
+     */
+    @GetMapping(
+            value = "/review/count",
+            produces = "application/json")
+    Mono<Long> countReviews(@RequestParam(value = "productId", required = true) int productId);
+
+    /**
+     * Sample usage: "curl $HOST:$PORT/review/batch?productIds=1,2,3".
+     *
+     * @param productIds Ids of the products
+     * @return the reviews of all the products, ordered by productId and reviewId
+     */
+    @GetMapping(
+            value = "/review/batch",
+            produces = "application/json")
+    Flux<Review> getReviews(@RequestParam(value = "productIds", required = true) List<Integer> productIds);
 
     Mono<Void> deleteReviews(int productId);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import static java.time.ZonedDateTime.now;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.ser.ZonedDateTimeSerializer;
 import java.time.ZonedDateTime;
+import java.util.UUID;
 
 public class Event<K, T> {
 
@@ -17,12 +18,14 @@ public class Event<K, T> {
     private final K key;
     private final T data;
     private final ZonedDateTime eventCreatedAt;
+    private final UUID eventId;
 
     public Event() {
         this.eventType = null;
         this.key = null;
         this.data = null;
         this.eventCreatedAt = null;
+        this.eventId = null;
     }
 
     public Event(Type eventType, K key, T data) {
@@ -30,6 +33,15 @@ public class Event<K, T> {
         this.key = key;
         this.data = data;
         this.eventCreatedAt = now();
+        this.eventId = UUID.randomUUID();
+    }
+
+    /**
+     * Identifies the event, a redelivery of the event has the same id. Null for events from producers
+     * that don't set it.
+     */
+    public UUID getEventId() {
+        return eventId;
     }
 
     public Type getEventType() {
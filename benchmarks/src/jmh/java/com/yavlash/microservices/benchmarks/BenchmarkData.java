@@ -0,0 +1,82 @@
+package com.yavlash.microservices.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.composite.product.RecommendationSummary;
+import com.yavlash.api.composite.product.ReviewSummary;
+import com.yavlash.api.composite.product.ServiceAddresses;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Test data shared by the benchmarks, shaped like the data of the test-em-all.bash script.
+ */
+public final class BenchmarkData {
+    public static final int PRODUCT_ID = 1;
+    public static final String SERVICE_ADDRESS = "product-composite-5d8f7b6c4-x2x7k/172.17.0.5:8080";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates an ObjectMapper configured like the one Spring Boot auto-configures for the services.
+     */
+    public static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    /**
+     * Creates a Smile ObjectMapper configured like the one of the SmileMessageConverter.
+     */
+    public static ObjectMapper smileMapper() {
+        return SmileMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    public static Product product() {
+        return new Product(PRODUCT_ID, "product name", 123, SERVICE_ADDRESS);
+    }
+
+    public static List<Recommendation> recommendations(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> new Recommendation(PRODUCT_ID, id, "author " + id, id % 5, "recommendation content " + id, SERVICE_ADDRESS))
+                .collect(Collectors.toList());
+    }
+
+    public static List<Review> reviews(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> new Review(PRODUCT_ID, id, "author " + id, "subject " + id, "review content " + id, SERVICE_ADDRESS))
+                .collect(Collectors.toList());
+    }
+
+    public static ProductAggregate productAggregate(int count) {
+        List<RecommendationSummary> recommendations = recommendations(count).stream()
+                .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent()))
+                .collect(Collectors.toList());
+        List<ReviewSummary> reviews = reviews(count).stream()
+                .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent()))
+                .collect(Collectors.toList());
+        ServiceAddresses serviceAddresses = new ServiceAddresses(SERVICE_ADDRESS, SERVICE_ADDRESS, SERVICE_ADDRESS, SERVICE_ADDRESS);
+        return new ProductAggregate(PRODUCT_ID, "product name", 123, recommendations, reviews,
+                (long) count, (long) count, serviceAddresses);
+    }
+}
@@ -0,0 +1,82 @@
+package com.yavlash.microservices.benchmarks;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.yavlash.microservices.core.recommendation.persistence.RecommendationEntity;
+import com.yavlash.microservices.core.recommendation.persistence.RecommendationRepository;
+import com.yavlash.microservices.core.recommendation.persistence.RecommendationRepositoryCustomImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks deleting the recommendations of a product, streaming them back to delete each one by id against
+ * the single server-side deleteMany of deleteByProductId.
+ * <p>
+ * Needs a MongoDB, e.g. started with: docker run -d -p 27017:27017 mongo:4.4.2. Another one can be given with
+ * -p mongoUri=... The recommendations are inserted before each invocation, so only the delete is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkDeleteBenchmark {
+    private static final String DATABASE = "recommendation-benchmark";
+
+    @Param({"100", "1000", "10000"})
+    private int count;
+
+    @Param("mongodb://localhost:27017")
+    private String mongoUri;
+
+    private MongoClient client;
+    private RecommendationRepository repository;
+    private List<RecommendationEntity> entities;
+
+    @Setup
+    public void setUp() {
+        client = MongoClients.create(mongoUri);
+        ReactiveMongoTemplate template = new ReactiveMongoTemplate(client, DATABASE);
+        repository = new ReactiveMongoRepositoryFactory(template).getRepository(RecommendationRepository.class,
+                RepositoryFragments.just(new RecommendationRepositoryCustomImpl(template)));
+        repository.deleteAll().block();
+    }
+
+    @Setup(Level.Invocation)
+    public void insertRecommendations() {
+        entities = IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new RecommendationEntity(BenchmarkData.PRODUCT_ID, i, "author " + i, i % 6, "content " + i))
+                .collect(Collectors.toList());
+        repository.insertAllUnordered(entities).block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.deleteAll().block();
+        client.close();
+    }
+
+    @Benchmark
+    public void findThenDelete() {
+        repository.deleteAll(repository.findByProductId(BenchmarkData.PRODUCT_ID)).block();
+    }
+
+    @Benchmark
+    public Long deleteByProductId() {
+        return repository.deleteByProductId(BenchmarkData.PRODUCT_ID).block();
+    }
+}
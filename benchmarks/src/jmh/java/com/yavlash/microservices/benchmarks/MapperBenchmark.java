@@ -0,0 +1,98 @@
+package com.yavlash.microservices.benchmarks;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.microservices.core.product.persistence.ProductEntity;
+import com.yavlash.microservices.core.product.services.ProductMapper;
+import com.yavlash.microservices.core.product.services.ProductMapperImpl;
+import com.yavlash.microservices.core.recommendation.persistence.RecommendationEntity;
+import com.yavlash.microservices.core.recommendation.services.RecommendationMapper;
+import com.yavlash.microservices.core.recommendation.services.RecommendationMapperImpl;
+import com.yavlash.microservices.core.review.persistence.ReviewEntity;
+import com.yavlash.microservices.core.review.services.ReviewMapper;
+import com.yavlash.microservices.core.review.services.ReviewMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the MapStruct mappers of the core services, the list variants with as many elements as
+ * a product usually has recommendations or reviews.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+    @Param({"3", "20", "100"})
+    private int count;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+    private final RecommendationMapper recommendationMapper = new RecommendationMapperImpl();
+    private final ReviewMapper reviewMapper = new ReviewMapperImpl();
+
+    private Product product;
+    private ProductEntity productEntity;
+    private List<Recommendation> recommendations;
+    private List<RecommendationEntity> recommendationEntities;
+    private List<Review> reviews;
+    private List<ReviewEntity> reviewEntities;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkData.product();
+        productEntity = productMapper.apiToEntity(product);
+        recommendations = BenchmarkData.recommendations(count);
+        recommendationEntities = recommendationMapper.apiListToEntityList(recommendations);
+        reviews = BenchmarkData.reviews(count);
+        reviewEntities = reviewMapper.apiListToEntityList(reviews);
+    }
+
+    @Benchmark
+    public Product productEntityToApi() {
+        return productMapper.entityToApi(productEntity);
+    }
+
+    @Benchmark
+    public ProductEntity productApiToEntity() {
+        return productMapper.apiToEntity(product);
+    }
+
+    @Benchmark
+    public Recommendation recommendationEntityToApi() {
+        return recommendationMapper.entityToApi(recommendationEntities.get(0));
+    }
+
+    @Benchmark
+    public List<Recommendation> recommendationEntityListToApiList() {
+        return recommendationMapper.entityListToApiList(recommendationEntities);
+    }
+
+    @Benchmark
+    public List<RecommendationEntity> recommendationApiListToEntityList() {
+        return recommendationMapper.apiListToEntityList(recommendations);
+    }
+
+    @Benchmark
+    public Review reviewEntityToApi() {
+        return reviewMapper.entityToApi(reviewEntities.get(0));
+    }
+
+    @Benchmark
+    public List<Review> reviewEntityListToApiList() {
+        return reviewMapper.entityListToApiList(reviewEntities);
+    }
+
+    @Benchmark
+    public List<ReviewEntity> reviewApiListToEntityList() {
+        return reviewMapper.apiListToEntityList(reviews);
+    }
+}
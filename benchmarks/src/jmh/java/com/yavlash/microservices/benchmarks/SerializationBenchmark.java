@@ -0,0 +1,117 @@
+package com.yavlash.microservices.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+
+/**
+ * Benchmarks the Jackson serialization of the composite response and of the events sent to the core services,
+ * the events both as JSON and as Smile. The readers and writers are created once, as Spring does for its codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+    @Param({"3", "20", "100"})
+    private int count;
+
+    private ObjectWriter aggregateWriter;
+    private ObjectReader aggregateReader;
+    private ObjectWriter productEventWriter;
+    private ObjectReader productEventReader;
+    private ObjectWriter reviewEventWriter;
+    private ObjectReader reviewEventReader;
+    private ObjectWriter reviewEventSmileWriter;
+    private ObjectReader reviewEventSmileReader;
+
+    private ProductAggregate aggregate;
+    private byte[] aggregateJson;
+    private Event<Integer, Product> productEvent;
+    private byte[] productEventJson;
+    private Event<Integer, Review> reviewEvent;
+    private byte[] reviewEventJson;
+    private byte[] reviewEventSmile;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper mapper = BenchmarkData.objectMapper();
+        aggregateWriter = mapper.writerFor(ProductAggregate.class);
+        aggregateReader = mapper.readerFor(ProductAggregate.class);
+        TypeReference<Event<Integer, Product>> productEventType = new TypeReference<>() {};
+        productEventWriter = mapper.writerFor(productEventType);
+        productEventReader = mapper.readerFor(productEventType);
+        TypeReference<Event<Integer, Review>> reviewEventType = new TypeReference<>() {};
+        reviewEventWriter = mapper.writerFor(reviewEventType);
+        reviewEventReader = mapper.readerFor(reviewEventType);
+        ObjectMapper smileMapper = BenchmarkData.smileMapper();
+        reviewEventSmileWriter = smileMapper.writerFor(reviewEventType);
+        reviewEventSmileReader = smileMapper.readerFor(reviewEventType);
+
+        aggregate = BenchmarkData.productAggregate(count);
+        aggregateJson = aggregateWriter.writeValueAsBytes(aggregate);
+        productEvent = new Event<>(CREATE, BenchmarkData.PRODUCT_ID, BenchmarkData.product());
+        productEventJson = productEventWriter.writeValueAsBytes(productEvent);
+        reviewEvent = new Event<>(CREATE, BenchmarkData.PRODUCT_ID, BenchmarkData.reviews(1).get(0));
+        reviewEventJson = reviewEventWriter.writeValueAsBytes(reviewEvent);
+        reviewEventSmile = reviewEventSmileWriter.writeValueAsBytes(reviewEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeProductAggregate() throws JsonProcessingException {
+        return aggregateWriter.writeValueAsBytes(aggregate);
+    }
+
+    @Benchmark
+    public ProductAggregate deserializeProductAggregate() throws IOException {
+        return aggregateReader.readValue(aggregateJson);
+    }
+
+    @Benchmark
+    public byte[] serializeProductEvent() throws JsonProcessingException {
+        return productEventWriter.writeValueAsBytes(productEvent);
+    }
+
+    @Benchmark
+    public Event<Integer, Product> deserializeProductEvent() throws IOException {
+        return productEventReader.readValue(productEventJson);
+    }
+
+    @Benchmark
+    public byte[] serializeReviewEvent() throws JsonProcessingException {
+        return reviewEventWriter.writeValueAsBytes(reviewEvent);
+    }
+
+    @Benchmark
+    public Event<Integer, Review> deserializeReviewEvent() throws IOException {
+        return reviewEventReader.readValue(reviewEventJson);
+    }
+
+    @Benchmark
+    public byte[] serializeReviewEventSmile() throws JsonProcessingException {
+        return reviewEventSmileWriter.writeValueAsBytes(reviewEvent);
+    }
+
+    @Benchmark
+    public Event<Integer, Review> deserializeReviewEventSmile() throws IOException {
+        return reviewEventSmileReader.readValue(reviewEventSmile);
+    }
+}
@@ -0,0 +1,74 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.microservices.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the composite response written from the JSON of the core services, mapped to objects and serialized
+ * again as {@link ProductCompositeServiceImpl} does, against passed through by the {@link ProductAggregateJsonWriter}.
+ * The allocation per request is reported by the gc profiler as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PassThroughBenchmark {
+    @Param({"3", "20", "100"})
+    private int count;
+
+    private ProductCompositeServiceImpl service;
+    private ProductAggregateJsonWriter writer;
+    private ObjectReader productReader;
+    private ObjectReader recommendationsReader;
+    private ObjectReader reviewsReader;
+    private ObjectWriter aggregateWriter;
+    private byte[] productJson;
+    private byte[] recommendationsJson;
+    private byte[] reviewsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = BenchmarkData.objectMapper();
+        service = new ProductCompositeServiceImpl(null, null, null, null, null, null, 200, 0);
+        writer = new ProductAggregateJsonWriter(mapper.getFactory(), true);
+        productReader = mapper.readerFor(Product.class);
+        recommendationsReader = mapper.readerFor(new TypeReference<List<Recommendation>>() {});
+        reviewsReader = mapper.readerFor(new TypeReference<List<Review>>() {});
+        aggregateWriter = mapper.writerFor(ProductAggregate.class);
+        productJson = mapper.writeValueAsBytes(BenchmarkData.product());
+        recommendationsJson = mapper.writeValueAsBytes(BenchmarkData.recommendations(count));
+        reviewsJson = mapper.writeValueAsBytes(BenchmarkData.reviews(count));
+    }
+
+    @Benchmark
+    public byte[] mapped() throws IOException {
+        Product product = productReader.readValue(productJson);
+        List<Recommendation> recommendations = recommendationsReader.readValue(recommendationsJson);
+        List<Review> reviews = reviewsReader.readValue(reviewsJson);
+        return aggregateWriter.writeValueAsBytes(service.createProductAggregate(product,
+                recommendations, (long) recommendations.size(), reviews, (long) reviews.size(), BenchmarkData.SERVICE_ADDRESS));
+    }
+
+    @Benchmark
+    public byte[] passThrough() throws IOException {
+        return writer.write(productJson, recommendationsJson, null, reviewsJson, null, BenchmarkData.SERVICE_ADDRESS);
+    }
+}
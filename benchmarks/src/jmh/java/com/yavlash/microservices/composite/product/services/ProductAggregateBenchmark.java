@@ -0,0 +1,49 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.microservices.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ProductCompositeServiceImpl#createProductAggregate}, placed in its package to reach the
+ * package-private method without going through the integration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductAggregateBenchmark {
+    @Param({"3", "20", "100"})
+    private int count;
+
+    private ProductCompositeServiceImpl service;
+    private Product product;
+    private List<Recommendation> recommendations;
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        service = new ProductCompositeServiceImpl(null, null, null, null, null, null, 200, 0);
+        product = BenchmarkData.product();
+        recommendations = BenchmarkData.recommendations(count);
+        reviews = BenchmarkData.reviews(count);
+    }
+
+    @Benchmark
+    public ProductAggregate createProductAggregate() {
+        return service.createProductAggregate(product, recommendations, (long) count, reviews, (long) count,
+                BenchmarkData.SERVICE_ADDRESS);
+    }
+}
@@ -1,6 +1,8 @@
 package com.yavlash.microservices.composite.product.config;
 
+import com.yavlash.microservices.composite.product.loadbalancer.LatencyAwareLoadBalancerConfiguration;
 import com.yavlash.microservices.composite.product.services.HealthService;
+import com.yavlash.microservices.composite.product.services.ProductAggregatePassThrough;
 import io.swagger.v3.oas.models.ExternalDocumentation;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Contact;
@@ -11,17 +13,32 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.CompositeReactiveHealthContributor;
 import org.springframework.boot.actuate.health.ReactiveHealthContributor;
 import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+
 @Configuration
 @ComponentScan("com.yavlash")
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
 public class ApplicationConfiguration {
     @Value("${api.common.version}")
     String apiVersion;
@@ -82,9 +99,59 @@ public class ApplicationConfiguration {
         return CompositeReactiveHealthContributor.fromMap(registry);
     }
 
+    /**
+     * Routes the JSON reads of a composite product to the pass-through, ahead of the annotated controller.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.passThrough.enabled", havingValue = "true")
+    public RouterFunction<ServerResponse> productAggregatePassThroughRoute(ProductAggregatePassThrough passThrough) {
+        return RouterFunctions.route(GET("/product-composite/{productId}").and(accept(APPLICATION_JSON)), passThrough::getProduct);
+    }
+
+    /**
+     * Connection pool of the calls to the core services. Reactor Netty keeps one pool per remote address, so the
+     * limits apply per instance. The pool metrics (total, active, idle and pending connections) are tagged with
+     * the remote address.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider coreServicesConnectionProvider(
+            @Value("${app.httpClient.maxConnections:100}") int maxConnections,
+            @Value("${app.httpClient.pendingAcquireMaxCount:1000}") int pendingAcquireMaxCount,
+            @Value("${app.httpClient.pendingAcquireTimeoutMs:5000}") long pendingAcquireTimeoutMs,
+            @Value("${app.httpClient.maxIdleTimeMs:30000}") long maxIdleTimeMs,
+            @Value("${app.httpClient.maxLifeTimeMs:300000}") long maxLifeTimeMs,
+            @Value("${app.httpClient.evictInBackgroundMs:30000}") long evictInBackgroundMs) {
+        return ConnectionProvider.builder("core-services")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictInBackgroundMs))
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * HTTP client of the calls to the core services. With h2c enabled, HTTP/1.1 connections are upgraded to
+     * HTTP/2 and the requests to an instance are multiplexed over its connections.
+     */
+    @Bean
+    public HttpClient coreServicesHttpClient(
+            ConnectionProvider coreServicesConnectionProvider,
+            @Value("${app.httpClient.h2c:true}") boolean h2c,
+            @Value("${app.httpClient.responseTimeoutMs:10000}") long responseTimeoutMs) {
+        HttpProtocol[] protocols = h2c
+                ? new HttpProtocol[]{HttpProtocol.H2C, HttpProtocol.HTTP11}
+                : new HttpProtocol[]{HttpProtocol.HTTP11};
+        return HttpClient.create(coreServicesConnectionProvider)
+                .protocol(protocols)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+    }
+
     @Bean
     @LoadBalanced
-    public WebClient.Builder loadBalancedWebClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder loadBalancedWebClientBuilder(HttpClient coreServicesHttpClient) {
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(coreServicesHttpClient));
     }
 }
\ No newline at end of file
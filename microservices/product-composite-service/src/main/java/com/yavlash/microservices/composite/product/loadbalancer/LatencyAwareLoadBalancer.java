@@ -0,0 +1,182 @@
+package com.yavlash.microservices.composite.product.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import static org.springframework.cloud.client.loadbalancer.CompletionContext.Status.FAILED;
+
+/**
+ * Load balancer that prefers the instances that answer fastest and have the fewest requests in flight.
+ * <p>
+ * The latency of each instance is tracked as a peak EWMA, a slower answer is taken over at once and faster
+ * answers pull it down with a time based decay. The cost of an instance is its latency times its requests
+ * in flight plus one. An instance without answers yet is free while idle and costs the failure penalty per
+ * request in flight, so it is probed but not flooded, and failed requests count as the failure penalty.
+ * <p>
+ * Latencies and requests in flight are fed back through the {@link LoadBalancerLifecycle} callbacks of the
+ * load-balanced WebClient and of the hedged requests. A discarded request, i.e. a cancelled hedge, counts
+ * with the time it was in flight, which is a lower bound of its latency.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    public enum Strategy {
+        /** Picks the cheapest of all instances. */
+        LEAST_LOADED,
+        /** Picks the cheaper of two random instances, which avoids herding on the one cheapest instance. */
+        POWER_OF_TWO_CHOICES
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final Strategy strategy;
+    private final double decayNanos;
+    private final long failurePenaltyNanos;
+    private final LongSupplier clock;
+    private final Random random;
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId, Strategy strategy, long decayMs, long failurePenaltyMs) {
+        this(serviceInstanceListSupplierProvider, serviceId, strategy, decayMs, failurePenaltyMs, System::nanoTime, new Random());
+    }
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId, Strategy strategy, long decayMs, long failurePenaltyMs, LongSupplier clock, Random random) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.strategy = strategy;
+        this.decayNanos = decayMs * 1_000_000d;
+        this.failurePenaltyNanos = failurePenaltyMs * 1_000_000L;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            LOG.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        long now = clock.getAsLong();
+        if (strategy == Strategy.LEAST_LOADED) {
+            ServiceInstance best = instances.get(0);
+            double bestCost = stats(best).cost(now);
+            for (int i = 1; i < instances.size(); i++) {
+                double cost = stats(instances.get(i)).cost(now);
+                if (cost < bestCost) {
+                    best = instances.get(i);
+                    bestCost = cost;
+                }
+            }
+            return new DefaultResponse(best);
+        }
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(stats(a).cost(now) <= stats(b).cost(now) ? a : b);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext) {
+            ((TimedRequestContext) request.getContext()).setRequestStartTime(clock.getAsLong());
+        }
+        if (lbResponse.hasServer()) {
+            stats(lbResponse.getServer()).start();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats instanceStats = stats(lbResponse.getServer());
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        if (!(context instanceof TimedRequestContext) || ((TimedRequestContext) context).getRequestStartTime() == 0) {
+            instanceStats.complete(clock.getAsLong(), -1);
+            return;
+        }
+        long now = clock.getAsLong();
+        long latency = now - ((TimedRequestContext) context).getRequestStartTime();
+        instanceStats.complete(now, completionContext.status() == FAILED ? Math.max(latency, failurePenaltyNanos) : latency);
+    }
+
+    private InstanceStats stats(ServiceInstance instance) {
+        return stats.computeIfAbsent(instance.getHost() + ":" + instance.getPort(), key -> new InstanceStats());
+    }
+
+    private class InstanceStats {
+        private int inFlight;
+        private double ewmaNanos;
+        private long updatedAt;
+        private boolean sampled;
+
+        synchronized void start() {
+            inFlight++;
+        }
+
+        synchronized void complete(long now, long latencyNanos) {
+            inFlight = Math.max(0, inFlight - 1);
+            if (latencyNanos < 0) {
+                return;
+            }
+            if (!sampled || latencyNanos > ewmaNanos) {
+                ewmaNanos = latencyNanos;
+            } else {
+                double weight = Math.exp(-(now - updatedAt) / decayNanos);
+                ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+            }
+            sampled = true;
+            updatedAt = now;
+        }
+
+        synchronized double cost(long now) {
+            if (!sampled) {
+                return (double) failurePenaltyNanos * inFlight;
+            }
+            // An instance that hasn't answered for a while decays towards 0 and is tried again
+            double weight = Math.exp(-(now - updatedAt) / decayNanos);
+            return ewmaNanos * weight * (inFlight + 1);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.yavlash.microservices.composite.product.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer of each core service, registered as default configuration of the load balancer clients.
+ * <p>
+ * The strategy is read from app.loadbalancer.[service].strategy, falling back to app.loadbalancer.strategy:
+ * round_robin, least_loaded or power_of_two_choices. Deliberately not a @Configuration class, so it is only
+ * picked up by the child context of each load balancer client and not by the component scan.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareLoadBalancerConfiguration.class);
+    private static final String PREFIX = "app.loadbalancer.";
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        String strategy = property(environment, serviceId, "strategy", "power_of_two_choices");
+        long decayMs = Long.parseLong(property(environment, serviceId, "decayMs", "10000"));
+        long failurePenaltyMs = Long.parseLong(property(environment, serviceId, "failurePenaltyMs", "1000"));
+        LOG.info("Creates a load balancer for service: {}, strategy = {}, decay = {} ms, failurePenalty = {} ms",
+                serviceId, strategy, decayMs, failurePenaltyMs);
+        if (strategy.equalsIgnoreCase("round_robin")) {
+            return new RoundRobinLoadBalancer(
+                    loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId);
+        }
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId,
+                LatencyAwareLoadBalancer.Strategy.valueOf(strategy.toUpperCase()), decayMs, failurePenaltyMs);
+    }
+
+    private String property(Environment environment, String serviceId, String name, String defaultValue) {
+        return environment.getProperty(PREFIX + serviceId + "." + name,
+                environment.getProperty(PREFIX + name, defaultValue));
+    }
+}
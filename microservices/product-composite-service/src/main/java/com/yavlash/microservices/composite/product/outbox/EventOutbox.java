@@ -0,0 +1,274 @@
+package com.yavlash.microservices.composite.product.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.event.Event;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Local append-only log of events waiting to be published to the message broker.
+ * <p>
+ * Each record is stored as [length][crc32][binding name][partition key][event json]. The offset of the
+ * last record handed over to the broker is kept in a separate file, so a restart resumes from there.
+ * A torn record at the end of the log, left by a crash in the middle of an append, is detected by its
+ * length or checksum and truncated on startup. Once every record is committed the log is truncated.
+ * <p>
+ * The directory has to survive a restart of the host, it has no default since the temp directory of many hosts
+ * is wiped on reboot.
+ */
+@Component
+public class EventOutbox {
+    private static final Logger LOG = LoggerFactory.getLogger(EventOutbox.class);
+    private static final String LOG_FILE = "outbox.log";
+    private static final String OFFSET_FILE = "outbox.offset";
+    private static final int HEADER_SIZE = 8;
+    private final boolean enabled;
+    private final boolean fsync;
+    private final ObjectMapper mapper;
+    private final Path directory;
+    private FileChannel channel;
+    private long committedOffset;
+
+    @Autowired
+    public EventOutbox(
+            @Value("${app.outbox.enabled:false}") boolean enabled,
+            @Value("${app.outbox.directory:}") String directory,
+            @Value("${app.outbox.fsync:true}") boolean fsync,
+            ObjectMapper mapper,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.fsync = fsync;
+        this.mapper = mapper;
+        if (enabled && directory.isBlank()) {
+            throw new IllegalStateException("app.outbox.directory must be set to a persistent directory when the outbox is enabled");
+        }
+        this.directory = Paths.get(directory);
+        if (enabled) {
+            open();
+            Gauge.builder("product.composite.outbox.pending", this, EventOutbox::pendingBytes)
+                    .description("Bytes appended to the outbox that are not yet published")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        LOG.info("Creates an event outbox, enabled = {}, directory = {}, fsync = {}", enabled, directory, fsync);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(String bindingName, Event event) {
+        appendAll(bindingName, List.of(event));
+    }
+
+    /**
+     * Appends the events with a single write and, if enabled, a single fsync.
+     */
+    public synchronized void appendAll(String bindingName, List<Event> events) {
+        byte[] binding = bindingName.getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> records = new ArrayList<>(events.size());
+        int totalSize = 0;
+        for (Event event : events) {
+            ByteBuffer record = toRecord(bindingName, binding, event);
+            records.add(record);
+            totalSize += record.remaining();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(totalSize);
+        records.forEach(buffer::put);
+        buffer.flip();
+        try {
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append events to outbox", e);
+        }
+    }
+
+    private ByteBuffer toRecord(String bindingName, byte[] binding, Event event) {
+        byte[] payload;
+        try {
+            payload = mapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize event for binding: " + bindingName, e);
+        }
+        int length = 2 + binding.length + 4 + payload.length;
+        ByteBuffer body = ByteBuffer.allocate(length);
+        body.putShort((short) binding.length).put(binding).putInt((Integer) event.getKey()).put(payload).flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.putInt(length).putInt((int) crc.getValue()).put(body).flip();
+        return record;
+    }
+
+    /**
+     * Reads records following the last committed offset.
+     *
+     * @param maxRecords max number of records to return
+     * @return the records, in append order
+     */
+    public synchronized List<OutboxRecord> read(int maxRecords) {
+        List<OutboxRecord> records = new ArrayList<>();
+        try {
+            long position = committedOffset;
+            long size = channel.size();
+            while (records.size() < maxRecords && position < size) {
+                OutboxRecord record = readRecord(position, size);
+                if (record == null) {
+                    break;
+                }
+                records.add(record);
+                position = record.getEndOffset();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read events from outbox", e);
+        }
+        return records;
+    }
+
+    /**
+     * Marks all records up to the offset as published.
+     *
+     * @param offset end offset of the last published record
+     */
+    public synchronized void commit(long offset) {
+        try {
+            if (offset == channel.size()) {
+                // The offset is reset before the log is truncated. A crash in between republishes the
+                // committed records, the other way round a stale offset could skip records appended later.
+                writeOffset(0);
+                channel.truncate(0);
+                channel.force(true);
+                offset = 0;
+            } else {
+                writeOffset(offset);
+            }
+            committedOffset = offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit outbox offset", e);
+        }
+    }
+
+    public synchronized long pendingBytes() {
+        try {
+            return channel.size() - committedOffset;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close outbox: {}", e.toString());
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(directory.resolve(LOG_FILE), CREATE, READ, WRITE);
+            long size = channel.size();
+            long validEnd = 0;
+            OutboxRecord record;
+            while (validEnd < size && (record = readRecord(validEnd, size)) != null) {
+                validEnd = record.getEndOffset();
+            }
+            if (validEnd < size) {
+                LOG.warn("Truncates torn tail of outbox, {} bytes after offset {}", size - validEnd, validEnd);
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+            Path offsetFile = directory.resolve(OFFSET_FILE);
+            long offset = Files.exists(offsetFile)
+                    ? Long.parseLong(new String(Files.readAllBytes(offsetFile), StandardCharsets.US_ASCII).trim())
+                    : 0;
+            committedOffset = Math.min(offset, validEnd);
+            if (committedOffset != offset) {
+                LOG.warn("Resets the outbox offset {} beyond the end of the log to {}", offset, committedOffset);
+                writeOffset(committedOffset);
+            }
+            LOG.info("Opened outbox with {} bytes pending after offset {}", validEnd - committedOffset, committedOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open outbox in " + directory, e);
+        }
+    }
+
+    private void writeOffset(long offset) throws IOException {
+        Path tmp = directory.resolve(OFFSET_FILE + ".tmp");
+        Files.write(tmp, Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmp, directory.resolve(OFFSET_FILE), ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    private OutboxRecord readRecord(long position, long size) throws IOException {
+        if (position + HEADER_SIZE > size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, position);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 6 || position + HEADER_SIZE + length > size) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(body, position + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        byte[] binding = new byte[body.getShort()];
+        body.get(binding);
+        int partitionKey = body.getInt();
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        return new OutboxRecord(new String(binding, StandardCharsets.UTF_8), partitionKey, payload,
+                position + HEADER_SIZE + length);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of outbox at offset " + position);
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,31 @@
+package com.yavlash.microservices.composite.product.outbox;
+
+public class OutboxRecord {
+    private final String bindingName;
+    private final int partitionKey;
+    private final byte[] payload;
+    private final long endOffset;
+
+    public OutboxRecord(String bindingName, int partitionKey, byte[] payload, long endOffset) {
+        this.bindingName = bindingName;
+        this.partitionKey = partitionKey;
+        this.payload = payload;
+        this.endOffset = endOffset;
+    }
+
+    public String getBindingName() {
+        return bindingName;
+    }
+
+    public int getPartitionKey() {
+        return partitionKey;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+}
@@ -0,0 +1,220 @@
+package com.yavlash.microservices.composite.product.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Publishes the events of the {@link EventOutbox} to the message broker in batches.
+ * <p>
+ * The committed offset is only moved past records that the broker acknowledged, so a failure or a
+ * restart leads to the remaining records being published again (at-least-once delivery). With RabbitMQ
+ * each record is sent with a correlation for a publisher confirm, and the confirms are awaited before the
+ * commit. With Kafka the bindings send synchronously, so a send only returns once the broker has the record.
+ * Both are configured by the outbox profile.
+ * <p>
+ * The outbox keeps the events as JSON, which is sent as is to the bindings with the application/json content type.
+ * For a binding with another content type, e.g. application/x-jackson-smile with the smile_events profile, the
+ * event is read back and tagged with that content type, so the binder writes it in the configured format.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+    private final EventOutbox outbox;
+    private final Sender sender;
+    private final Function<String, String> contentTypes;
+    private final ObjectMapper mapper;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final boolean awaitConfirms;
+    private final long confirmTimeoutMs;
+    private Scheduler scheduler;
+
+    @Autowired
+    public OutboxRelay(
+            EventOutbox outbox,
+            StreamBridge streamBridge,
+            BindingServiceProperties bindingServiceProperties,
+            ObjectMapper mapper,
+            @Value("${app.outbox.batchSize:500}") int batchSize,
+            @Value("${app.outbox.pollIntervalMs:50}") long pollIntervalMs,
+            @Value("${spring.cloud.stream.defaultBinder:rabbit}") String defaultBinder,
+            @Value("${app.outbox.confirmTimeoutMs:5000}") long confirmTimeoutMs) {
+        this(outbox, streamBridge::send, bindingName -> bindingServiceProperties.getBindingProperties(bindingName).getContentType(),
+                mapper, batchSize, pollIntervalMs, "rabbit".equals(defaultBinder), confirmTimeoutMs);
+    }
+
+    public OutboxRelay(EventOutbox outbox, Sender sender, int batchSize, long pollIntervalMs) {
+        this(outbox, sender, bindingName -> MimeTypeUtils.APPLICATION_JSON_VALUE, new ObjectMapper(), batchSize, pollIntervalMs, false, 0);
+    }
+
+    public OutboxRelay(EventOutbox outbox, Sender sender, int batchSize, long pollIntervalMs,
+            boolean awaitConfirms, long confirmTimeoutMs) {
+        this(outbox, sender, bindingName -> MimeTypeUtils.APPLICATION_JSON_VALUE, new ObjectMapper(), batchSize, pollIntervalMs,
+                awaitConfirms, confirmTimeoutMs);
+    }
+
+    /**
+     * @param contentTypes  the content type of each binding, null for application/json
+     * @param mapper        reads back the events of bindings with another content type than application/json
+     * @param awaitConfirms if the records are only committed once their publisher confirms are acks
+     */
+    public OutboxRelay(EventOutbox outbox, Sender sender, Function<String, String> contentTypes, ObjectMapper mapper,
+            int batchSize, long pollIntervalMs, boolean awaitConfirms, long confirmTimeoutMs) {
+        this.outbox = outbox;
+        this.sender = sender;
+        this.contentTypes = contentTypes;
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.awaitConfirms = awaitConfirms;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!outbox.isEnabled()) {
+            return;
+        }
+        LOG.info("Starts outbox relay with batchSize = {}, pollInterval = {}ms, awaitConfirms = {}", batchSize, pollIntervalMs, awaitConfirms);
+        scheduler = Schedulers.newSingle("outbox-relay");
+        scheduler.schedulePeriodically(this::drain, pollIntervalMs, pollIntervalMs, MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+
+    /**
+     * Publishes pending records until the outbox is empty or the binder rejects a record.
+     *
+     * @return number of published records
+     */
+    public int drain() {
+        int published = 0;
+        try {
+            List<OutboxRecord> records;
+            do {
+                records = outbox.read(batchSize);
+                int sent = send(records);
+                published += sent;
+                if (sent < records.size()) {
+                    break;
+                }
+            } while (records.size() == batchSize);
+        } catch (RuntimeException e) {
+            LOG.warn("Outbox relay failed, will retry: {}", e.toString());
+        }
+        if (published > 0) {
+            LOG.debug("Published {} events from the outbox", published);
+        }
+        return published;
+    }
+
+    /**
+     * Sends the records and commits the ones acknowledged by the broker, up to the first that wasn't.
+     */
+    private int send(List<OutboxRecord> records) {
+        List<CorrelationData> confirms = new ArrayList<>();
+        for (OutboxRecord record : records) {
+            CorrelationData correlation = awaitConfirms ? new CorrelationData() : null;
+            try {
+                MessageBuilder<?> message = message(record);
+                if (correlation != null) {
+                    message.setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlation);
+                }
+                if (!sender.send(record.getBindingName(), message.build())) {
+                    LOG.warn("Binder rejected outbox event for {}, will retry", record.getBindingName());
+                    break;
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to send outbox event for {}, will retry: {}", record.getBindingName(), e.toString());
+                break;
+            }
+            confirms.add(correlation);
+        }
+        int sent = 0;
+        long offset = -1;
+        for (CorrelationData correlation : confirms) {
+            OutboxRecord record = records.get(sent);
+            if (correlation != null && !isAcknowledged(correlation, record)) {
+                break;
+            }
+            offset = record.getEndOffset();
+            sent++;
+        }
+        if (offset >= 0) {
+            outbox.commit(offset);
+        }
+        return sent;
+    }
+
+    private MessageBuilder<?> message(OutboxRecord record) {
+        String contentType = contentTypes.apply(record.getBindingName());
+        MessageBuilder<?> message;
+        if (contentType == null || MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(MimeType.valueOf(contentType))) {
+            contentType = MimeTypeUtils.APPLICATION_JSON_VALUE;
+            message = MessageBuilder.withPayload(record.getPayload());
+        } else {
+            try {
+                message = MessageBuilder.withPayload(mapper.readValue(record.getPayload(), Event.class));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read outbox event for " + record.getBindingName(), e);
+            }
+        }
+        return message
+                .setHeader("partitionKey", record.getPartitionKey())
+                .setHeader(MessageHeaders.CONTENT_TYPE, contentType);
+    }
+
+    private boolean isAcknowledged(CorrelationData correlation, OutboxRecord record) {
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, MILLISECONDS);
+            if (!confirm.isAck()) {
+                LOG.warn("Broker nacked outbox event for {}, will retry: {}", record.getBindingName(), confirm.getReason());
+            }
+            return confirm.isAck();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("No confirm for outbox event for {}, will retry: {}", record.getBindingName(), e.toString());
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Sender {
+        boolean send(String bindingName, Message<?> message);
+    }
+}
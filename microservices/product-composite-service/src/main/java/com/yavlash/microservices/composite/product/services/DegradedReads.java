@@ -0,0 +1,64 @@
+package com.yavlash.microservices.composite.product.services;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Marks the composite reads that were answered with a fallback instead of the core services, e.g. a last known good
+ * response or an empty list after a failure, so that their aggregates are not cached.
+ * <p>
+ * A read is tracked by an AtomicBoolean in its Reactor context, the fallbacks set it when they are subscribed.
+ * Reads that are not tracked are not marked.
+ */
+public final class DegradedReads {
+    private static final Class<DegradedReads> CONTEXT_KEY = DegradedReads.class;
+
+    private DegradedReads() {
+    }
+
+    /**
+     * Runs the read with the marker in its context, the marker is set if any call of the read falls back.
+     */
+    public static <T> Mono<T> track(Mono<T> read, AtomicBoolean degraded) {
+        return read.contextWrite(context -> context.put(CONTEXT_KEY, degraded));
+    }
+
+    public static <T> Flux<T> track(Flux<T> read, AtomicBoolean degraded) {
+        return read.contextWrite(context -> context.put(CONTEXT_KEY, degraded));
+    }
+
+    /**
+     * Returns the fallback, marking the read it is subscribed by as degraded.
+     */
+    public static <T> Mono<T> fallback(Mono<T> fallback) {
+        return Mono.deferContextual(context -> {
+            mark(context);
+            return fallback;
+        });
+    }
+
+    public static <T> Flux<T> fallback(Flux<T> fallback) {
+        return Flux.deferContextual(context -> {
+            mark(context);
+            return fallback;
+        });
+    }
+
+    /**
+     * Passes the result of a shared read on, marking the read it is subscribed by as degraded if the shared read was.
+     */
+    public static <T> Mono<T> propagate(Mono<T> shared, AtomicBoolean degraded) {
+        return Mono.deferContextual(context -> shared.doOnSuccess(value -> {
+            if (degraded.get()) {
+                mark(context);
+            }
+        }));
+    }
+
+    private static void mark(ContextView context) {
+        context.<AtomicBoolean>getOrEmpty(CONTEXT_KEY).ifPresent(degraded -> degraded.set(true));
+    }
+}
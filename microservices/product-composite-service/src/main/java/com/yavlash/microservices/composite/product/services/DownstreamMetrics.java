@@ -0,0 +1,158 @@
+package com.yavlash.microservices.composite.product.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static reactor.core.publisher.SignalType.CANCEL;
+import static reactor.core.publisher.SignalType.ON_COMPLETE;
+import static reactor.core.publisher.SignalType.ON_ERROR;
+
+/**
+ * Latency metrics of the calls to the core services and of the fan-out that assembles a product aggregate.
+ * <p>
+ * Calls are recorded by the "product.composite.downstream" timer, tagged with service, operation, outcome
+ * and instance, where instance is the service address returned by the core service. The fan-out is recorded
+ * by the "product.composite.fanout" timer, tagged with the critical path, i.e. the service that completed last
+ * and therefore decided the latency of the request. Both timers publish percentile histograms, which are
+ * exposed as Prometheus buckets on /actuator/prometheus.
+ */
+@Component
+public class DownstreamMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(DownstreamMetrics.class);
+    static final String DOWNSTREAM_TIMER = "product.composite.downstream";
+    static final String FANOUT_TIMER = "product.composite.fanout";
+    static final String UNKNOWN = "unknown";
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+    private final MeterRegistry registry;
+
+    @Autowired
+    public DownstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Times the call, the instance is taken from the emitted value.
+     */
+    public <T> Mono<T> timed(String service, String operation, Mono<T> call, Function<T, String> instanceOf) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicReference<String> instance = new AtomicReference<>(UNKNOWN);
+            return call
+                    .doOnNext(value -> instance.set(instanceOrUnknown(instanceOf.apply(value))))
+                    .doOnSuccess(value -> recordCall(service, operation, ON_COMPLETE, instance.get(), start))
+                    .doOnError(error -> recordCall(service, operation, ON_ERROR, instance.get(), start))
+                    .doOnCancel(() -> recordCall(service, operation, CANCEL, instance.get(), start));
+        });
+    }
+
+    /**
+     * Times the call until its last element, the instance is taken from the first element.
+     */
+    public <T> Flux<T> timed(String service, String operation, Flux<T> call, Function<T, String> instanceOf) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicReference<String> instance = new AtomicReference<>(UNKNOWN);
+            return call
+                    .doOnNext(value -> instance.compareAndSet(UNKNOWN, instanceOrUnknown(instanceOf.apply(value))))
+                    .doOnComplete(() -> recordCall(service, operation, ON_COMPLETE, instance.get(), start))
+                    .doOnError(error -> recordCall(service, operation, ON_ERROR, instance.get(), start))
+                    .doOnCancel(() -> recordCall(service, operation, CANCEL, instance.get(), start));
+        });
+    }
+
+    /**
+     * Starts tracking the fan-out of one request, to be called when the request subscribes to its calls.
+     */
+    public FanOut fanOut(int productId) {
+        return new FanOut(productId);
+    }
+
+    // Recorded before the signal is passed on, so the call is on the timer when the caller sees its result
+    private void recordCall(String service, String operation, SignalType signal, String instance, long start) {
+        Timer.builder(DOWNSTREAM_TIMER)
+                .description("Latency of the calls to the core services")
+                .tag("service", service)
+                .tag("operation", operation)
+                .tag("outcome", outcome(signal))
+                .tag("instance", instance)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "SUCCESS";
+            case ON_ERROR:
+                return "ERROR";
+            default:
+                return "CANCELLED";
+        }
+    }
+
+    private static String instanceOrUnknown(String instance) {
+        return (instance == null || instance.isEmpty()) ? UNKNOWN : instance;
+    }
+
+    /**
+     * Tracks the completion of the parallel calls of one request, the service whose last call completes last
+     * is the critical path of the request.
+     */
+    public class FanOut {
+        private final int productId;
+        private final long start = System.nanoTime();
+        private final Map<String, Long> completedAt = new ConcurrentHashMap<>();
+
+        private FanOut(int productId) {
+            this.productId = productId;
+        }
+
+        public <T> Mono<T> track(String service, Mono<T> call) {
+            return call.doOnTerminate(() -> completedAt.merge(service, System.nanoTime(), Math::max));
+        }
+
+        public <T> Mono<T> record(Mono<T> aggregate) {
+            return aggregate
+                    .doOnSuccess(value -> recordFanOut(ON_COMPLETE))
+                    .doOnError(error -> recordFanOut(ON_ERROR))
+                    .doOnCancel(() -> recordFanOut(CANCEL));
+        }
+
+        private void recordFanOut(SignalType signal) {
+            long nanos = System.nanoTime() - start;
+            String criticalPath = completedAt.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(UNKNOWN);
+            LOG.debug("Fan-out for product.id={} took {} ms, critical path: {}",
+                    productId, TimeUnit.NANOSECONDS.toMillis(nanos), criticalPath);
+            Timer.builder(FANOUT_TIMER)
+                    .description("Latency of the parallel calls that assemble a product aggregate")
+                    .tag("critical_path", criticalPath)
+                    .tag("outcome", outcome(signal))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
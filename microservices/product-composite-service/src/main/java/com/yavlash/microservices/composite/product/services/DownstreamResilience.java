@@ -0,0 +1,140 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yavlash.api.exceptions.InvalidInputException;
+import com.yavlash.api.exceptions.NotFoundException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Circuit breaker, time limiter and bulkhead of each core service, with a store of the last known good responses.
+ * <p>
+ * The resilience4j instances are named after the service and configured under resilience4j.* in application.yml.
+ * The operators are applied to the response itself, so the elements of a Flux are passed on as they arrive and the
+ * time limiter bounds the wait for each element, not the whole response.
+ * <p>
+ * The successful reads of {@link #mono} and {@link #flux} are stored by service and request path, a Flux is recorded
+ * as its elements pass through, so only bounded reads such as a first page should use it. When such a read fails
+ * before its first element, because the circuit is open, the bulkhead is full, the call timed out or the service
+ * failed, the last known good response of the same request is served instead. Reads of {@link #stream}, e.g. batches
+ * and streams, are never stored. Not found and invalid input errors are answers of the service and are passed on.
+ * Fallbacks are counted by the "product.composite.fallback" counter, tagged with service and result (hit, miss),
+ * and mark their read as degraded, see {@link DegradedReads}.
+ */
+@Component
+public class DownstreamResilience {
+    private static final Logger LOG = LoggerFactory.getLogger(DownstreamResilience.class);
+    private static final String STORE_NAME = "lastKnownGood";
+    static final String FALLBACK_COUNTER = "product.composite.fallback";
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Object> lastKnownGood;
+
+    @Autowired
+    public DownstreamResilience(
+            @Value("${app.fallbackStore.maximumSize:10000}") long maximumSize,
+            @Value("${app.fallbackStore.expireAfterWriteMinutes:1440}") long expireAfterWriteMinutes,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry,
+            MeterRegistry meterRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.timeLimiterRegistry = timeLimiterRegistry;
+        this.meterRegistry = meterRegistry;
+        this.lastKnownGood = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lastKnownGood, STORE_NAME);
+        LOG.info("Creates a last known good store, maximumSize = {}, expireAfterWrite = {}m",
+                maximumSize, expireAfterWriteMinutes);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> mono(String serviceId, String path, Mono<T> call) {
+        String key = serviceId + path;
+        return protect(serviceId, call)
+                .doOnNext(value -> lastKnownGood.put(key, value))
+                .onErrorResume(this::isFailure, error -> {
+                    T fallback = (T) lastKnownGood.getIfPresent(key);
+                    return fallback(serviceId, path, error, fallback) ? DegradedReads.fallback(Mono.just(fallback)) : Mono.error(error);
+                });
+    }
+
+    /**
+     * Reads a bounded list, e.g. a first page, passing its elements on as they arrive. The list is kept as the last
+     * known good response once the read completes. A failure after the first element is passed on, the elements
+     * already sent can't be replaced.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> flux(String serviceId, String path, Flux<T> call) {
+        String key = serviceId + path;
+        return Flux.defer(() -> {
+            List<T> received = new ArrayList<>();
+            return protect(serviceId, call)
+                    .doOnNext(received::add)
+                    .doOnComplete(() -> lastKnownGood.put(key, received))
+                    .onErrorResume(error -> isFailure(error) && received.isEmpty(), error -> {
+                        List<T> fallback = (List<T>) lastKnownGood.getIfPresent(key);
+                        return fallback(serviceId, path, error, fallback) ? DegradedReads.fallback(Flux.fromIterable(fallback)) : Flux.error(error);
+                    });
+        });
+    }
+
+    /**
+     * Reads a batch or a stream, passing its elements on as they arrive, without a last known good response.
+     */
+    public <T> Flux<T> stream(String serviceId, Flux<T> call) {
+        return protect(serviceId, call);
+    }
+
+    // Innermost first: the bulkhead bounds the calls in flight, the time limiter bounds the wait for each
+    // element and the circuit breaker sees the timeouts as failures
+    private <T> Mono<T> protect(String serviceId, Mono<T> call) {
+        return call
+                .transformDeferred(BulkheadOperator.of(bulkheadRegistry.bulkhead(serviceId)))
+                .transformDeferred(TimeLimiterOperator.of(timeLimiterRegistry.timeLimiter(serviceId)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(serviceId)));
+    }
+
+    private <T> Flux<T> protect(String serviceId, Flux<T> call) {
+        return call
+                .transformDeferred(BulkheadOperator.of(bulkheadRegistry.bulkhead(serviceId)))
+                .transformDeferred(TimeLimiterOperator.of(timeLimiterRegistry.timeLimiter(serviceId)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(serviceId)));
+    }
+
+    private boolean isFailure(Throwable error) {
+        return !(error instanceof NotFoundException || error instanceof InvalidInputException);
+    }
+
+    private boolean fallback(String serviceId, String path, Throwable error, Object fallback) {
+        boolean hit = fallback != null;
+        meterRegistry.counter(FALLBACK_COUNTER, "service", serviceId, "result", hit ? "hit" : "miss").increment();
+        LOG.warn("Call to {}{} failed: {}, {}", serviceId, path, error.toString(),
+                hit ? "serves the last known good response" : "no last known good response");
+        return hit;
+    }
+}
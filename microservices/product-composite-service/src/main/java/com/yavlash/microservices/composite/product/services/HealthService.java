@@ -3,46 +3,188 @@ package com.yavlash.microservices.composite.product.services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.reactive.DeferringLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import static java.util.logging.Level.FINE;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Health of the core services, answered from memory.
+ * <p>
+ * A background poller calls /actuator/health on every instance of each core service known to the discovery
+ * client, every app.healthPoller.intervalMs, and keeps the latest status of each instance. A service is UP if
+ * at least one of its instances is UP and DOWN if it has no instances or none of them is UP. The status is
+ * UNKNOWN until the first poll is done, and an instance whose status is older than app.healthPoller.staleAfterMs
+ * is reported as UNKNOWN.
+ */
 @Component
 public class HealthService {
     private static final Logger LOG = LoggerFactory.getLogger(HealthService.class);
-    private static final String PRODUCT_SERVICE_URL = "http://product";
-    private static final String RECOMMENDATION_SERVICE_URL = "http://recommendation";
-    private static final String REVIEW_SERVICE_URL = "http://review";
+    private static final String PRODUCT_SERVICE = "product";
+    private static final String RECOMMENDATION_SERVICE = "recommendation";
+    private static final String REVIEW_SERVICE = "review";
+    private static final List<String> SERVICES = List.of(PRODUCT_SERVICE, RECOMMENDATION_SERVICE, REVIEW_SERVICE);
+    private static final Health NOT_POLLED = Health.unknown().withDetail("reason", "Not polled yet").build();
+    private final Duration interval;
+    private final Duration timeout;
+    private final Duration staleAfter;
     private final WebClient webClient;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final Map<String, Map<String, InstanceHealth>> instances = new ConcurrentHashMap<>();
+    private Disposable poller;
 
     @Autowired
     public HealthService(
-            WebClient.Builder webClientBuilder
+            @Value("${app.healthPoller.intervalMs:5000}") long intervalMs,
+            @Value("${app.healthPoller.timeoutMs:2000}") long timeoutMs,
+            @Value("${app.healthPoller.staleAfterMs:30000}") long staleAfterMs,
+            WebClient.Builder webClientBuilder,
+            ReactiveDiscoveryClient discoveryClient
     ) {
-        this.webClient = webClientBuilder.build();
+        this.interval = Duration.ofMillis(intervalMs);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        // Every instance is called by its own address, so the load balancer filter of the shared builder is left out
+        this.webClient = webClientBuilder.clone()
+                .filters(filters -> filters.removeIf(filter -> filter instanceof LoadBalancedExchangeFilterFunction
+                        || filter instanceof DeferringLoadBalancerExchangeFilterFunction))
+                .build();
+        this.discoveryClient = discoveryClient;
+    }
+
+    @PostConstruct
+    public void start() {
+        LOG.info("Starts health poller with interval = {} ms, timeout = {} ms", interval.toMillis(), timeout.toMillis());
+        // A poll that takes longer than the interval makes the next tick be skipped rather than queued
+        poller = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> poll(), 0)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.dispose();
+        }
     }
 
     public Mono<Health> getProductHealth() {
-        return getHealth(PRODUCT_SERVICE_URL);
+        return Mono.just(getHealth(PRODUCT_SERVICE));
     }
 
     public Mono<Health> getRecommendationHealth() {
-        return getHealth(RECOMMENDATION_SERVICE_URL);
+        return Mono.just(getHealth(RECOMMENDATION_SERVICE));
     }
 
     public Mono<Health> getReviewHealth() {
-        return getHealth(REVIEW_SERVICE_URL);
+        return Mono.just(getHealth(REVIEW_SERVICE));
     }
 
-    private Mono<Health> getHealth(String url) {
-        url += "/actuator/health";
+    /**
+     * Refreshes the status of all instances of the core services.
+     */
+    public Mono<Void> poll() {
+        return Flux.fromIterable(SERVICES)
+                .flatMap(this::poll)
+                .then();
+    }
+
+    private Mono<Void> poll(String serviceId) {
+        return discoveryClient.getInstances(serviceId)
+                .flatMap(this::getHealth)
+                .collectMap(InstanceHealth::getInstance, instanceHealth -> instanceHealth, LinkedHashMap::new)
+                .doOnNext(statuses -> instances.put(serviceId, statuses))
+                .doOnError(ex -> LOG.warn("Failed to poll the health of {}, keeps the last status: {}", serviceId, ex.toString()))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    private Mono<InstanceHealth> getHealth(ServiceInstance instance) {
+        String url = instance.getUri() + "/actuator/health";
         LOG.debug("Will call the Health API on URL: {}", url);
-        return webClient.get().uri(url).retrieve().bodyToMono(String.class)
-                .map(s -> new Health.Builder().up().build())
-                .onErrorResume(ex -> Mono.just(new Health.Builder().down(ex).build()))
-                .log(LOG.getName(), FINE);
+        String key = instance.getHost() + ":" + instance.getPort();
+        // A DOWN instance answers with 503 and its status in the body
+        return webClient.get().uri(url)
+                .exchangeToMono(response -> response.bodyToMono(Map.class)
+                        .map(body -> new Status(String.valueOf(body.getOrDefault("status", Status.UNKNOWN.getCode()))))
+                        .defaultIfEmpty(response.statusCode().is2xxSuccessful() ? Status.UP : Status.DOWN))
+                .timeout(timeout)
+                .map(status -> new InstanceHealth(key, status, null))
+                .onErrorResume(ex -> Mono.just(new InstanceHealth(key, Status.DOWN, ex.toString())));
+    }
+
+    private Health getHealth(String serviceId) {
+        Map<String, InstanceHealth> statuses = instances.get(serviceId);
+        if (statuses == null) {
+            return NOT_POLLED;
+        }
+        Instant staleBefore = Instant.now().minus(staleAfter);
+        Map<String, Object> details = new LinkedHashMap<>();
+        Status status = Status.DOWN;
+        for (InstanceHealth instanceHealth : statuses.values()) {
+            Status instanceStatus = instanceHealth.getCheckedAt().isBefore(staleBefore) ? Status.UNKNOWN : instanceHealth.getStatus();
+            if (Status.UP.equals(instanceStatus)) {
+                status = Status.UP;
+            }
+            details.put(instanceHealth.getInstance(), instanceHealth.toDetails(instanceStatus));
+        }
+        Health.Builder builder = Health.status(status).withDetail("instances", details);
+        if (statuses.isEmpty()) {
+            builder.withDetail("reason", "No instances found");
+        }
+        return builder.build();
+    }
+
+    private static class InstanceHealth {
+        private final String instance;
+        private final Status status;
+        private final String error;
+        private final Instant checkedAt = Instant.now();
+
+        InstanceHealth(String instance, Status status, String error) {
+            this.instance = instance;
+            this.status = status;
+            this.error = error;
+        }
+
+        String getInstance() {
+            return instance;
+        }
+
+        Status getStatus() {
+            return status;
+        }
+
+        Instant getCheckedAt() {
+            return checkedAt;
+        }
+
+        Map<String, Object> toDetails(Status reportedStatus) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("status", reportedStatus.getCode());
+            details.put("checkedAt", checkedAt.toString());
+            if (error != null) {
+                details.put("error", error);
+            }
+            return details;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,227 @@
+package com.yavlash.microservices.composite.product.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.reactive.DeferringLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Hedged reads against the core services, enabled by app.hedging.enabled.
+ * <p>
+ * Each read is sent to an instance chosen by the service's load balancer. If it has not answered within the
+ * hedging delay, the same read is sent to another instance of the service and the first one to answer wins,
+ * the other one is cancelled. The delay is a percentile of the recent latencies of the service, bounded by
+ * a min and max delay. Only idempotent GET requests are hedged. Hedges are counted by the
+ * "product.composite.hedge" counter, tagged with service and event (eligible, sent, won, no_instance).
+ */
+@Component
+public class HedgedRequests {
+    private static final Logger LOG = LoggerFactory.getLogger(HedgedRequests.class);
+    static final String HEDGE_COUNTER = "product.composite.hedge";
+    private static final int OTHER_INSTANCE_ATTEMPTS = 3;
+    private static final int RECALCULATE_EVERY = 32;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final int windowSize;
+    private final WebClient webClient;
+    private final ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerFactory;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HedgedRequests(
+            @Value("${app.hedging.enabled:false}") boolean enabled,
+            @Value("${app.hedging.percentile:0.95}") double percentile,
+            @Value("${app.hedging.minDelayMs:5}") long minDelayMs,
+            @Value("${app.hedging.maxDelayMs:500}") long maxDelayMs,
+            @Value("${app.hedging.windowSize:1000}") int windowSize,
+            WebClient.Builder webClientBuilder,
+            ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerFactory,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = Duration.ofMillis(minDelayMs).toNanos();
+        this.maxDelayNanos = Duration.ofMillis(maxDelayMs).toNanos();
+        this.windowSize = windowSize;
+        // Instances are chosen here, so the load balancer filter of the shared builder is left out
+        this.webClient = webClientBuilder.clone()
+                .filters(filters -> filters.removeIf(filter -> filter instanceof LoadBalancedExchangeFilterFunction
+                        || filter instanceof DeferringLoadBalancerExchangeFilterFunction))
+                .build();
+        this.loadBalancerFactory = loadBalancerFactory;
+        this.meterRegistry = meterRegistry;
+        LOG.info("Creates hedged requests, enabled = {}, percentile = {}, delay = {}-{} ms",
+                enabled, percentile, minDelayMs, maxDelayMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> Mono<T> getMono(String serviceId, String pathAndQuery, Class<T> type) {
+        return hedge(serviceId, pathAndQuery, uri -> webClient.get().uri(uri).retrieve().bodyToMono(type).flux())
+                .singleOrEmpty();
+    }
+
+    public <T> Flux<T> getFlux(String serviceId, String pathAndQuery, Class<T> type) {
+        return hedge(serviceId, pathAndQuery, uri -> webClient.get().uri(uri).retrieve().bodyToFlux(type));
+    }
+
+    /**
+     * Returns the current hedging delay of the service, the max delay until enough latencies are recorded.
+     */
+    public Duration getDelay(String serviceId) {
+        return Duration.ofNanos(latencies(serviceId).delayNanos);
+    }
+
+    private <T> Flux<T> hedge(String serviceId, String pathAndQuery, Function<URI, Flux<T>> call) {
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = loadBalancerFactory.getInstance(serviceId);
+        LatencyWindow window = latencies(serviceId);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            count(serviceId, "eligible");
+            return choose(loadBalancer)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("No instance available for service: " + serviceId)))
+                    .flatMapMany(primaryInstance -> {
+                        AtomicReference<String> winner = new AtomicReference<>();
+                        Flux<T> primary = tracked(serviceId, primaryInstance, call.apply(uri(primaryInstance, pathAndQuery)))
+                                .doOnEach(signal -> answered(winner, "primary", window, start));
+                        Flux<T> hedge = Mono.delay(Duration.ofNanos(window.delayNanos))
+                                .then(chooseOther(loadBalancer, primaryInstance).map(Optional::of).defaultIfEmpty(Optional.empty()))
+                                .flatMapMany(other -> {
+                                    if (other.isEmpty()) {
+                                        // A single instance can't be hedged, the primary request has to answer
+                                        count(serviceId, "no_instance");
+                                        return Flux.never();
+                                    }
+                                    ServiceInstance instance = other.get();
+                                    LOG.debug("No answer from {} within {} ms, hedges the request to {}",
+                                            primaryInstance.getUri(), Duration.ofNanos(window.delayNanos).toMillis(), instance.getUri());
+                                    count(serviceId, "sent");
+                                    return tracked(serviceId, instance, call.apply(uri(instance, pathAndQuery)))
+                                            .doOnEach(signal -> {
+                                                if (answered(winner, "hedge", window, start)) {
+                                                    count(serviceId, "won");
+                                                }
+                                            });
+                                });
+                        return Flux.firstWithSignal(primary, hedge);
+                    });
+        });
+    }
+
+    private boolean answered(AtomicReference<String> winner, String source, LatencyWindow window, long start) {
+        if (winner.compareAndSet(null, source)) {
+            window.record(System.nanoTime() - start);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reports the call to the lifecycle callbacks of the service's load balancer, as the load-balanced WebClient
+     * does, so a latency aware load balancer also learns from hedged calls. A cancelled call is reported as
+     * discarded, with the time it was in flight.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> tracked(String serviceId, ServiceInstance instance, Flux<T> call) {
+        Map<String, LoadBalancerLifecycle> beans = loadBalancerFactory.getInstances(serviceId, LoadBalancerLifecycle.class);
+        if (beans == null || beans.isEmpty()) {
+            return call;
+        }
+        Set<LoadBalancerLifecycle> lifecycles = LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                beans, RequestDataContext.class, Object.class, ServiceInstance.class);
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+        return call
+                .doOnSubscribe(subscription -> lifecycles.forEach(lifecycle -> lifecycle.onStartRequest(request, response)))
+                .doOnComplete(() -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                        new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response))))
+                .doOnError(error -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                        new CompletionContext<>(CompletionContext.Status.FAILED, error, request, response))))
+                .doOnCancel(() -> lifecycles.forEach(lifecycle -> lifecycle.onComplete(
+                        new CompletionContext<>(CompletionContext.Status.DISCARD, request, response))));
+    }
+
+    private Mono<ServiceInstance> choose(ReactiveLoadBalancer<ServiceInstance> loadBalancer) {
+        return Mono.from(loadBalancer.choose())
+                .filter(Response::hasServer)
+                .map(Response::getServer);
+    }
+
+    private Mono<ServiceInstance> chooseOther(ReactiveLoadBalancer<ServiceInstance> loadBalancer, ServiceInstance primary) {
+        return Flux.range(0, OTHER_INSTANCE_ATTEMPTS)
+                .concatMap(attempt -> choose(loadBalancer))
+                .filter(instance -> !sameInstance(instance, primary))
+                .next();
+    }
+
+    private static boolean sameInstance(ServiceInstance a, ServiceInstance b) {
+        return Objects.equals(a.getHost(), b.getHost()) && a.getPort() == b.getPort();
+    }
+
+    private static URI uri(ServiceInstance instance, String pathAndQuery) {
+        return instance.getUri().resolve(pathAndQuery);
+    }
+
+    private LatencyWindow latencies(String serviceId) {
+        return latencies.computeIfAbsent(serviceId, id -> new LatencyWindow());
+    }
+
+    private void count(String serviceId, String event) {
+        meterRegistry.counter(HEDGE_COUNTER, "service", serviceId, "event", event).increment();
+    }
+
+    /**
+     * Ring buffer of the latest answer times of a service, the hedging delay is recalculated from it
+     * every few answers instead of on every request.
+     */
+    private class LatencyWindow {
+        private final long[] samples = new long[windowSize];
+        private int next;
+        private int size;
+        private volatile long delayNanos = maxDelayNanos;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+            if (size >= RECALCULATE_EVERY && next % RECALCULATE_EVERY == 0) {
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                long value = sorted[Math.max(0, Math.min(size - 1, (int) Math.ceil(percentile * size) - 1))];
+                delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yavlash.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of assembled product aggregates.
+ * <p>
+ * Entries are evicted by size and time-to-live, and explicitly when the composite publishes
+ * create or delete events for a product. Hit, miss and eviction counters are exposed
+ * on actuator under the "cache.*" metrics with tag cache=productAggregates.
+ * <p>
+ * The core services apply the events after they are published, so a product is evicted twice: at once and
+ * again after evictAgainAfterMs, which drops an aggregate that was read from the core services in between.
+ * Every eviction bumps the invalidation version of the product, and a load only caches its result if the
+ * version of its product is unchanged. The versions are kept in a fixed number of stripes, products sharing
+ * a stripe only skip caching each other's loads.
+ * <p>
+ * Aggregates of loads that fell back, e.g. to empty reviews while the review service failed, are not cached,
+ * see {@link DegradedReads}. The next read goes to the core services again.
+ */
+@Component
+public class ProductAggregateCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateCache.class);
+    private static final String CACHE_NAME = "productAggregates";
+    private static final int INVALIDATION_STRIPES = 1024;
+    private final boolean enabled;
+    private final long evictAgainAfterMs;
+    private final Cache<Integer, ProductAggregate> cache;
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    @Autowired
+    public ProductAggregateCache(
+            @Value("${app.aggregateCache.enabled:true}") boolean enabled,
+            @Value("${app.aggregateCache.maximumSize:10000}") long maximumSize,
+            @Value("${app.aggregateCache.expireAfterWriteSeconds:60}") long expireAfterWriteSeconds,
+            @Value("${app.aggregateCache.evictAgainAfterMs:2000}") long evictAgainAfterMs,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.evictAgainAfterMs = evictAgainAfterMs;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        LOG.info("Creates a product aggregate cache, enabled = {}, maximumSize = {}, expireAfterWrite = {}s, evictAgainAfter = {}ms",
+                enabled, maximumSize, expireAfterWriteSeconds, evictAgainAfterMs);
+    }
+
+    /**
+     * Returns the cached aggregate for the product, or subscribes to the loader and caches its result.
+     *
+     * @param productId Id of the product
+     * @param loader    assembles the aggregate from the core services on a cache miss
+     * @return the cached or freshly loaded aggregate
+     */
+    public Mono<ProductAggregate> get(int productId, Supplier<Mono<ProductAggregate>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            ProductAggregate cached = cache.getIfPresent(productId);
+            if (cached != null) {
+                LOG.debug("Found product aggregate in cache for productId: {}", productId);
+                return Mono.just(cached);
+            }
+            long versionAtLoad = invalidations.get(stripe(productId));
+            AtomicBoolean degraded = new AtomicBoolean();
+            return DegradedReads.track(loader.get().doOnNext(aggregate -> put(productId, aggregate, versionAtLoad, degraded)), degraded);
+        });
+    }
+
+    /**
+     * Returns the cached aggregates for the products and loads the missing ones with a single call to the loader.
+     *
+     * @param productIds Ids of the products
+     * @param loader     assembles the aggregates of the missing product ids from the core services
+     * @return the cached aggregates followed by the freshly loaded ones
+     */
+    public Flux<ProductAggregate> getAll(Collection<Integer> productIds, Function<List<Integer>, Flux<ProductAggregate>> loader) {
+        if (!enabled) {
+            return loader.apply(new ArrayList<>(productIds));
+        }
+        return Flux.defer(() -> {
+            Map<Integer, ProductAggregate> cached = cache.getAllPresent(productIds);
+            List<Integer> missing = new ArrayList<>();
+            productIds.stream().filter(productId -> !cached.containsKey(productId)).forEach(missing::add);
+            LOG.debug("Found {} of {} product aggregates in cache", cached.size(), productIds.size());
+            if (missing.isEmpty()) {
+                return Flux.fromIterable(cached.values());
+            }
+            Map<Integer, Long> versionsAtLoad = new HashMap<>();
+            missing.forEach(productId -> versionsAtLoad.put(productId, invalidations.get(stripe(productId))));
+            AtomicBoolean degraded = new AtomicBoolean();
+            return Flux.fromIterable(cached.values())
+                    .concatWith(DegradedReads.track(loader.apply(missing)
+                            .doOnNext(aggregate -> {
+                                Long versionAtLoad = versionsAtLoad.get(aggregate.getProductId());
+                                if (versionAtLoad != null) {
+                                    put(aggregate.getProductId(), aggregate, versionAtLoad, degraded);
+                                }
+                            }), degraded));
+        });
+    }
+
+    /**
+     * Evicts the product at once and again after evictAgainAfterMs, once the core services have applied its events.
+     */
+    public void evict(int productId) {
+        if (!enabled) {
+            return;
+        }
+        invalidate(productId);
+        if (evictAgainAfterMs > 0) {
+            Schedulers.parallel().schedule(() -> invalidate(productId), evictAgainAfterMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void invalidate(int productId) {
+        LOG.debug("Evicts product aggregate from cache for productId: {}", productId);
+        invalidations.incrementAndGet(stripe(productId));
+        cache.invalidate(productId);
+    }
+
+    private void put(int productId, ProductAggregate aggregate, long versionAtLoad, AtomicBoolean degraded) {
+        if (degraded.get()) {
+            LOG.debug("Skips caching product aggregate for productId: {}, a core service call fell back", productId);
+            return;
+        }
+        // Skip loads that raced with an eviction of the product, they may have read data that is already outdated
+        if (invalidations.get(stripe(productId)) != versionAtLoad) {
+            LOG.debug("Skips caching product aggregate for productId: {}, evicted while loading", productId);
+            return;
+        }
+        cache.put(productId, aggregate);
+    }
+
+    private static int stripe(int productId) {
+        return Math.floorMod(productId, INVALIDATION_STRIPES);
+    }
+}
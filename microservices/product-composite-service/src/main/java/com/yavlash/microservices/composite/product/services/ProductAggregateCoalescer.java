@@ -0,0 +1,86 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.yavlash.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for composite reads.
+ * <p>
+ * Concurrent callers for the same productId share one in-flight fan-out to the core services.
+ * The entry is removed as soon as the shared request completes or fails, so later callers
+ * always trigger a new request. Originated and coalesced requests are counted in the
+ * "product.composite.aggregate.requests" metric, tagged with source.
+ */
+@Component
+public class ProductAggregateCoalescer {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateCoalescer.class);
+    private static final String METRIC_NAME = "product.composite.aggregate.requests";
+    private final boolean enabled;
+    private final ConcurrentMap<Integer, Mono<ProductAggregate>> inFlight = new ConcurrentHashMap<>();
+    private final Counter originated;
+    private final Counter coalesced;
+
+    @Autowired
+    public ProductAggregateCoalescer(
+            @Value("${app.requestCoalescing.enabled:true}") boolean enabled,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.originated = Counter.builder(METRIC_NAME)
+                .description("Composite reads that issued their own fan-out to the core services")
+                .tag("source", "originated")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder(METRIC_NAME)
+                .description("Composite reads that joined an in-flight fan-out for the same product")
+                .tag("source", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Joins the in-flight request for the product, or starts a new one using the loader.
+     *
+     * @param productId Id of the product
+     * @param loader    assembles the aggregate from the core services
+     * @return the shared aggregate
+     */
+    public Mono<ProductAggregate> get(int productId, Supplier<Mono<ProductAggregate>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            Mono<ProductAggregate> existing = inFlight.get(productId);
+            if (existing != null) {
+                return join(productId, existing);
+            }
+            // Only subscribed once it is in the map, so removing the key when it terminates removes this request.
+            // Every caller is marked degraded if the shared request was.
+            AtomicBoolean degraded = new AtomicBoolean();
+            Mono<ProductAggregate> shared = DegradedReads.propagate(DegradedReads.track(Mono.defer(loader), degraded)
+                    .doOnTerminate(() -> inFlight.remove(productId))
+                    .cache(), degraded);
+            existing = inFlight.putIfAbsent(productId, shared);
+            if (existing != null) {
+                return join(productId, existing);
+            }
+            originated.increment();
+            return shared;
+        });
+    }
+
+    private Mono<ProductAggregate> join(int productId, Mono<ProductAggregate> inFlightRequest) {
+        LOG.debug("Joins in-flight request for productId: {}", productId);
+        coalesced.increment();
+        return inFlightRequest;
+    }
+}
@@ -0,0 +1,136 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+
+/**
+ * Writes the JSON of a composite product straight from the JSON of the core services, token by token.
+ * <p>
+ * The fields of the product, recommendations and reviews are copied as they are, except productId and
+ * serviceAddress. The service addresses are collected into serviceAddresses instead. The output has the
+ * same format as a serialized ProductAggregate, but no Product, Recommendation, Review or summary objects
+ * are created on the way.
+ */
+public class ProductAggregateJsonWriter {
+    private static final String PRODUCT_ID = "productId";
+    private static final String SERVICE_ADDRESS = "serviceAddress";
+    private final JsonFactory jsonFactory;
+    private final boolean countElements;
+
+    /**
+     * @param countElements if the totals are the number of recommendations and reviews written, instead of the
+     *                      totals passed to {@link #write}
+     */
+    public ProductAggregateJsonWriter(JsonFactory jsonFactory, boolean countElements) {
+        this.jsonFactory = jsonFactory;
+        this.countElements = countElements;
+    }
+
+    /**
+     * @param product         JSON object of the product
+     * @param recommendations JSON array of the recommendations
+     * @param reviews         JSON array of the reviews
+     */
+    public byte[] write(byte[] product, byte[] recommendations, Long totalRecommendations,
+            byte[] reviews, Long totalReviews, String compositeAddress) throws IOException {
+        ByteArrayBuilder out = new ByteArrayBuilder(product.length + recommendations.length + reviews.length + 256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            String productAddress = copyProduct(product, generator);
+            generator.writeFieldName("recommendations");
+            Copied copiedRecommendations = copyArray(recommendations, generator);
+            generator.writeFieldName("reviews");
+            Copied copiedReviews = copyArray(reviews, generator);
+            writeTotal("totalRecommendations", countElements ? Long.valueOf(copiedRecommendations.count) : totalRecommendations, generator);
+            writeTotal("totalReviews", countElements ? Long.valueOf(copiedReviews.count) : totalReviews, generator);
+            generator.writeObjectFieldStart("serviceAddresses");
+            generator.writeStringField("cmp", compositeAddress);
+            generator.writeStringField("pro", productAddress);
+            generator.writeStringField("rev", copiedReviews.serviceAddress);
+            generator.writeStringField("rec", copiedRecommendations.serviceAddress);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Copies the fields of the product object into the current object, returns the service address.
+     */
+    private String copyProduct(byte[] product, JsonGenerator generator) throws IOException {
+        String serviceAddress = null;
+        try (JsonParser parser = jsonFactory.createParser(product)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (SERVICE_ADDRESS.equals(name)) {
+                    serviceAddress = parser.getValueAsString();
+                    parser.skipChildren();
+                } else {
+                    generator.writeFieldName(name);
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+        }
+        return serviceAddress;
+    }
+
+    /**
+     * Copies the array of objects without their productId and serviceAddress fields. Returns the number of
+     * objects and the service address of the first one, or an empty address if the array is empty.
+     */
+    private Copied copyArray(byte[] array, JsonGenerator generator) throws IOException {
+        Copied copied = new Copied();
+        try (JsonParser parser = jsonFactory.createParser(array)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            generator.writeStartArray();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                generator.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if (SERVICE_ADDRESS.equals(name)) {
+                        if (copied.count == 0) {
+                            copied.serviceAddress = parser.getValueAsString();
+                        }
+                        parser.skipChildren();
+                    } else if (PRODUCT_ID.equals(name)) {
+                        parser.skipChildren();
+                    } else {
+                        generator.writeFieldName(name);
+                        generator.copyCurrentStructure(parser);
+                    }
+                }
+                generator.writeEndObject();
+                copied.count++;
+            }
+            generator.writeEndArray();
+        }
+        return copied;
+    }
+
+    private void writeTotal(String name, Long total, JsonGenerator generator) throws IOException {
+        if (total == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, total);
+        }
+    }
+
+    private void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    private static class Copied {
+        private int count;
+        private String serviceAddress = "";
+    }
+}
@@ -0,0 +1,114 @@
+package com.yavlash.microservices.composite.product.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.exceptions.InvalidInputException;
+import com.yavlash.api.exceptions.NotFoundException;
+import com.yavlash.util.http.HttpErrorInfo;
+import com.yavlash.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.yavlash.microservices.composite.product.services.ProductCompositeIntegration.PRODUCT;
+import static com.yavlash.microservices.composite.product.services.ProductCompositeIntegration.RECOMMENDATION;
+import static com.yavlash.microservices.composite.product.services.ProductCompositeIntegration.REVIEW;
+import static java.util.logging.Level.FINE;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Answers GET /product-composite/{productId} with the JSON of the core services passed through, routed when
+ * app.passThrough.enabled is set.
+ * <p>
+ * The responses of the core services are read as bytes and rewritten by a {@link ProductAggregateJsonWriter},
+ * so the response is the same as the one of {@link ProductCompositeServiceImpl#getProduct} without deserializing
+ * and serializing it again. The calls go through the same metrics, hedging and resilience as the other reads,
+ * the composite product cache and coalescing are not used.
+ */
+@Component
+public class ProductAggregatePassThrough {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregatePassThrough.class);
+    private final ServiceUtil serviceUtil;
+    private final ProductCompositeIntegration integration;
+    private final DownstreamMetrics metrics;
+    private final ProductAggregateJsonWriter writer;
+    private final int pageSize;
+
+    @Autowired
+    public ProductAggregatePassThrough(ServiceUtil serviceUtil, ProductCompositeIntegration integration,
+            DownstreamMetrics metrics, ObjectMapper mapper,
+            @Value("${app.pageSize:20}") int pageSize) {
+        this.serviceUtil = serviceUtil;
+        this.integration = integration;
+        this.metrics = metrics;
+        this.writer = new ProductAggregateJsonWriter(mapper.getFactory(), pageSize <= 0);
+        this.pageSize = pageSize;
+    }
+
+    public Mono<ServerResponse> getProduct(ServerRequest request) {
+        int productId;
+        try {
+            productId = Integer.parseInt(request.pathVariable("productId"));
+        } catch (NumberFormatException e) {
+            return error(BAD_REQUEST, request, "Invalid product id: " + request.pathVariable("productId"));
+        }
+        LOG.info("Will pass through composite product info for product.id={}", productId);
+        return getProductJson(productId)
+                .flatMap(json -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(json))
+                .onErrorResume(NotFoundException.class, ex -> error(NOT_FOUND, request, ex.getMessage()))
+                .onErrorResume(InvalidInputException.class, ex -> error(UNPROCESSABLE_ENTITY, request, ex.getMessage()))
+                .doOnError(ex -> LOG.warn("getCompositeProduct failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    private Mono<byte[]> getProductJson(int productId) {
+        return Mono.defer(() -> {
+            DownstreamMetrics.FanOut fanOut = metrics.fanOut(productId);
+            String serviceAddress = serviceUtil.getServiceAddress();
+            Mono<byte[]> json;
+            if (pageSize <= 0) {
+                json = Mono.zip(
+                        values -> write(values[0], values[1], null, values[2], null, serviceAddress),
+                        fanOut.track(PRODUCT, integration.getProductJson(productId)),
+                        fanOut.track(RECOMMENDATION, integration.getRecommendationsJson(productId, 0, 0)),
+                        fanOut.track(REVIEW, integration.getReviewsJson(productId, 0, 0)));
+            } else {
+                json = Mono.zip(
+                        values -> write(values[0], values[1], ((Optional<Long>) values[3]).orElse(null),
+                                values[2], ((Optional<Long>) values[4]).orElse(null), serviceAddress),
+                        fanOut.track(PRODUCT, integration.getProductJson(productId)),
+                        fanOut.track(RECOMMENDATION, integration.getRecommendationsJson(productId, 0, pageSize)),
+                        fanOut.track(REVIEW, integration.getReviewsJson(productId, 0, pageSize)),
+                        fanOut.track(RECOMMENDATION, integration.countRecommendations(productId).map(Optional::of).defaultIfEmpty(Optional.empty())),
+                        fanOut.track(REVIEW, integration.countReviews(productId).map(Optional::of).defaultIfEmpty(Optional.empty())));
+            }
+            return fanOut.record(json);
+        });
+    }
+
+    private byte[] write(Object product, Object recommendations, Long totalRecommendations, Object reviews, Long totalReviews,
+            String serviceAddress) {
+        try {
+            return writer.write((byte[]) product, (byte[]) recommendations, totalRecommendations,
+                    (byte[]) reviews, totalReviews, serviceAddress);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid JSON from a core service: " + e.getMessage(), e);
+        }
+    }
+
+    private Mono<ServerResponse> error(HttpStatus status, ServerRequest request, String message) {
+        return ServerResponse.status(status).contentType(APPLICATION_JSON)
+                .bodyValue(new HttpErrorInfo(status, request.path(), message));
+    }
+}
@@ -10,6 +10,7 @@ import com.yavlash.api.core.review.ReviewController;
 import com.yavlash.api.event.Event;
 import com.yavlash.api.exceptions.InvalidInputException;
 import com.yavlash.api.exceptions.NotFoundException;
+import com.yavlash.microservices.composite.product.outbox.EventOutbox;
 import com.yavlash.util.http.HttpErrorInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,9 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.yavlash.api.event.Event.Type.CREATE;
 import static com.yavlash.api.event.Event.Type.DELETE;
@@ -38,22 +42,39 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
     private static final String PRODUCT_SERVICE_URL = "http://product";
     private static final String RECOMMENDATION_SERVICE_URL = "http://recommendation";
     private static final String REVIEW_SERVICE_URL = "http://review";
+    static final String PRODUCT = "product";
+    static final String RECOMMENDATION = "recommendation";
+    static final String REVIEW = "review";
+    private static final String RAW_KEY = "json:";
+    private static final byte[] EMPTY_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
     private final Scheduler publishEventScheduler;
     private final WebClient webClient;
     private final ObjectMapper mapper;
     private final StreamBridge streamBridge;
+    private final EventOutbox outbox;
+    private final DownstreamMetrics metrics;
+    private final HedgedRequests hedging;
+    private final DownstreamResilience resilience;
 
     @Autowired
     public ProductCompositeIntegration(
             @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
             WebClient.Builder webClientBuilder,
             ObjectMapper mapper,
-            StreamBridge streamBridge
+            StreamBridge streamBridge,
+            EventOutbox outbox,
+            DownstreamMetrics metrics,
+            HedgedRequests hedging,
+            DownstreamResilience resilience
     ) {
         this.webClient = webClientBuilder.build();
         this.publishEventScheduler = publishEventScheduler;
         this.mapper = mapper;
         this.streamBridge = streamBridge;
+        this.outbox = outbox;
+        this.metrics = metrics;
+        this.hedging = hedging;
+        this.resilience = resilience;
     }
 
     @Override
@@ -66,9 +87,20 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
 
     @Override
     public Mono<Product> getProduct(int productId) {
-        String url = PRODUCT_SERVICE_URL + "/product/" + productId;
-        LOG.debug("Will call the getProduct API on URL: {}", url);
-        return webClient.get().uri(url).retrieve().bodyToMono(Product.class).log(LOG.getName(), FINE).onErrorMap(WebClientResponseException.class, ex -> handleException(ex));
+        String path = "/product/" + productId;
+        LOG.debug("Will call the getProduct API on URL: {}", PRODUCT_SERVICE_URL + path);
+        return resilience.mono(PRODUCT, path, metrics.timed(PRODUCT, "get", getMono(PRODUCT, path, Product.class), Product::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        String path = "/product/batch?productIds=" + joinIds(productIds);
+        LOG.debug("Will call the getProducts API on URL: {}", PRODUCT_SERVICE_URL + path);
+        return resilience.stream(PRODUCT, metrics.timed(PRODUCT, "batch", getFlux(PRODUCT, path, Product.class), Product::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE);
     }
 
     @Override
@@ -85,11 +117,54 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }).subscribeOn(publishEventScheduler);
     }
 
+    /**
+     * Publishes the CREATE events of all recommendations in one task, in the order of the list, which lets
+     * the producer batch them into as few broker sends as possible.
+     */
+    public Mono<Void> createRecommendations(List<Recommendation> bodies) {
+        return Mono.fromRunnable(() -> sendMessages("recommendations-out-0", bodies.stream()
+                        .map(body -> new Event(CREATE, body.getProductId(), body))
+                        .collect(Collectors.toList())))
+                .subscribeOn(publishEventScheduler).then();
+    }
+
     @Override
-    public Flux<Recommendation> getRecommendations(int productId) {
-        String url = RECOMMENDATION_SERVICE_URL + "/recommendation?productId=" + productId;
-        LOG.debug("Will call the getRecommendations API on URL: {}", url);
-        return webClient.get().uri(url).retrieve().bodyToFlux(Recommendation.class).log(LOG.getName(), FINE).onErrorResume(error -> empty());
+    public Flux<Recommendation> getRecommendations(int productId, int afterId, int limit, List<String> fields) {
+        String path = "/recommendation?productId=" + productId + pageParams(afterId, limit, fields);
+        LOG.debug("Will call the getRecommendations API on URL: {}", RECOMMENDATION_SERVICE_URL + path);
+        return resilience.flux(RECOMMENDATION, path, metrics.timed(RECOMMENDATION, "get", getFlux(RECOMMENDATION, path, Recommendation.class), Recommendation::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(empty()));
+    }
+
+    /**
+     * Streams the first limit recommendations of the product as they arrive, for the stream of the composite product.
+     * They are not kept as the last known good response, the stream is empty if they can't be read.
+     */
+    public Flux<Recommendation> streamRecommendations(int productId, int limit) {
+        String path = "/recommendation?productId=" + productId + pageParams(0, limit, null);
+        LOG.debug("Will call the getRecommendations API on URL: {}", RECOMMENDATION_SERVICE_URL + path);
+        return resilience.stream(RECOMMENDATION, metrics.timed(RECOMMENDATION, "get", getFlux(RECOMMENDATION, path, Recommendation.class), Recommendation::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(empty()));
+    }
+
+    @Override
+    public Mono<Long> countRecommendations(int productId) {
+        String path = "/recommendation/count?productId=" + productId;
+        LOG.debug("Will call the countRecommendations API on URL: {}", RECOMMENDATION_SERVICE_URL + path);
+        return resilience.mono(RECOMMENDATION, path, metrics.timed(RECOMMENDATION, "count", getMono(RECOMMENDATION, path, Long.class), count -> null)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(Mono.empty()));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendations(List<Integer> productIds) {
+        String path = "/recommendation/batch?productIds=" + joinIds(productIds);
+        LOG.debug("Will call the getRecommendations API on URL: {}", RECOMMENDATION_SERVICE_URL + path);
+        return resilience.stream(RECOMMENDATION, metrics.timed(RECOMMENDATION, "batch", getFlux(RECOMMENDATION, path, Recommendation.class), Recommendation::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(empty()));
     }
 
     @Override
@@ -106,11 +181,54 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }).subscribeOn(publishEventScheduler);
     }
 
+    /**
+     * Publishes the CREATE events of all reviews in one task, in the order of the list, which lets
+     * the producer batch them into as few broker sends as possible.
+     */
+    public Mono<Void> createReviews(List<Review> bodies) {
+        return Mono.fromRunnable(() -> sendMessages("reviews-out-0", bodies.stream()
+                        .map(body -> new Event(CREATE, body.getProductId(), body))
+                        .collect(Collectors.toList())))
+                .subscribeOn(publishEventScheduler).then();
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId, int afterId, int limit, List<String> fields) {
+        String path = "/review?productId=" + productId + pageParams(afterId, limit, fields);
+        LOG.debug("Will call the getReviews API on URL: {}", REVIEW_SERVICE_URL + path);
+        return resilience.flux(REVIEW, path, metrics.timed(REVIEW, "get", getFlux(REVIEW, path, Review.class), Review::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(empty()));
+    }
+
+    /**
+     * Streams the first limit reviews of the product as they arrive, for the stream of the composite product.
+     * They are not kept as the last known good response, the stream is empty if they can't be read.
+     */
+    public Flux<Review> streamReviews(int productId, int limit) {
+        String path = "/review?productId=" + productId + pageParams(0, limit, null);
+        LOG.debug("Will call the getReviews API on URL: {}", REVIEW_SERVICE_URL + path);
+        return resilience.stream(REVIEW, metrics.timed(REVIEW, "get", getFlux(REVIEW, path, Review.class), Review::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(empty()));
+    }
+
+    @Override
+    public Mono<Long> countReviews(int productId) {
+        String path = "/review/count?productId=" + productId;
+        LOG.debug("Will call the countReviews API on URL: {}", REVIEW_SERVICE_URL + path);
+        return resilience.mono(REVIEW, path, metrics.timed(REVIEW, "count", getMono(REVIEW, path, Long.class), count -> null)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(Mono.empty()));
+    }
+
     @Override
-    public Flux<Review> getReviews(int productId) {
-        String url = REVIEW_SERVICE_URL + "/review?productId=" + productId;
-        LOG.debug("Will call the getReviews API on URL: {}", url);
-        return webClient.get().uri(url).retrieve().bodyToFlux(Review.class).log(LOG.getName(), FINE).onErrorResume(error -> empty());
+    public Flux<Review> getReviews(List<Integer> productIds) {
+        String path = "/review/batch?productIds=" + joinIds(productIds);
+        LOG.debug("Will call the getReviews API on URL: {}", REVIEW_SERVICE_URL + path);
+        return resilience.stream(REVIEW, metrics.timed(REVIEW, "batch", getFlux(REVIEW, path, Review.class), Review::getServiceAddress)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(empty()));
     }
 
     @Override
@@ -119,7 +237,75 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
                 .subscribeOn(publishEventScheduler).then();
     }
 
+    /**
+     * Reads the product as the JSON of the product service, for the pass-through of the composite product.
+     * The last known good responses are kept apart from the ones of {@link #getProduct}.
+     */
+    public Mono<byte[]> getProductJson(int productId) {
+        String path = "/product/" + productId;
+        LOG.debug("Will call the getProduct API on URL: {}", PRODUCT_SERVICE_URL + path);
+        return resilience.mono(PRODUCT, RAW_KEY + path, metrics.timed(PRODUCT, "get", getMono(PRODUCT, path, byte[].class), json -> null)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE);
+    }
+
+    /**
+     * Reads the recommendations as the JSON array of the recommendation service, an empty array if they can't be read.
+     */
+    public Mono<byte[]> getRecommendationsJson(int productId, int afterId, int limit) {
+        String path = "/recommendation?productId=" + productId + pageParams(afterId, limit, null);
+        LOG.debug("Will call the getRecommendations API on URL: {}", RECOMMENDATION_SERVICE_URL + path);
+        return resilience.mono(RECOMMENDATION, RAW_KEY + path, metrics.timed(RECOMMENDATION, "get", getMono(RECOMMENDATION, path, byte[].class), json -> null)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(Mono.empty())).defaultIfEmpty(EMPTY_ARRAY);
+    }
+
+    /**
+     * Reads the reviews as the JSON array of the review service, an empty array if they can't be read.
+     */
+    public Mono<byte[]> getReviewsJson(int productId, int afterId, int limit) {
+        String path = "/review?productId=" + productId + pageParams(afterId, limit, null);
+        LOG.debug("Will call the getReviews API on URL: {}", REVIEW_SERVICE_URL + path);
+        return resilience.mono(REVIEW, RAW_KEY + path, metrics.timed(REVIEW, "get", getMono(REVIEW, path, byte[].class), json -> null)
+                        .onErrorMap(WebClientResponseException.class, ex -> handleException(ex)))
+                .log(LOG.getName(), FINE).onErrorResume(error -> DegradedReads.fallback(Mono.empty())).defaultIfEmpty(EMPTY_ARRAY);
+    }
+
+    private <T> Mono<T> getMono(String serviceId, String path, Class<T> type) {
+        if (hedging.isEnabled()) {
+            return hedging.getMono(serviceId, path, type);
+        }
+        return webClient.get().uri("http://" + serviceId + path).retrieve().bodyToMono(type);
+    }
+
+    private <T> Flux<T> getFlux(String serviceId, String path, Class<T> type) {
+        if (hedging.isEnabled()) {
+            return hedging.getFlux(serviceId, path, type);
+        }
+        return webClient.get().uri("http://" + serviceId + path).retrieve().bodyToFlux(type);
+    }
+
+    private void sendMessages(String bindingName, List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (outbox.isEnabled()) {
+            LOG.debug("Appending {} messages for {} to the outbox", events.size(), bindingName);
+            outbox.appendAll(bindingName, events);
+            return;
+        }
+        LOG.debug("Sending {} messages to {}", events.size(), bindingName);
+        events.forEach(event -> streamBridge.send(bindingName, MessageBuilder.withPayload(event)
+                .setHeader("partitionKey", event.getKey())
+                .build()));
+    }
+
     private void sendMessage(String bindingName, Event event) {
+        if (outbox.isEnabled()) {
+            LOG.debug("Appending a {} message for {} to the outbox", event.getEventType(), bindingName);
+            outbox.append(bindingName, event);
+            return;
+        }
         LOG.debug("Sending a {} message to {}", event.getEventType(), bindingName);
         Message message = MessageBuilder.withPayload(event)
                 .setHeader("partitionKey", event.getKey())
@@ -127,6 +313,24 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         streamBridge.send(bindingName, message);
     }
 
+    private String joinIds(List<Integer> productIds) {
+        return productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private String pageParams(int afterId, int limit, List<String> fields) {
+        StringBuilder params = new StringBuilder();
+        if (afterId > 0) {
+            params.append("&afterId=").append(afterId);
+        }
+        if (limit > 0) {
+            params.append("&limit=").append(limit);
+        }
+        if (fields != null && !fields.isEmpty()) {
+            params.append("&fields=").append(String.join(",", fields));
+        }
+        return params.toString();
+    }
+
     private Throwable handleException(Throwable e) {
         if (!(e instanceof WebClientResponseException)) {
             LOG.warn("Got a unexpected error: {}, will rethrow it", e.toString());
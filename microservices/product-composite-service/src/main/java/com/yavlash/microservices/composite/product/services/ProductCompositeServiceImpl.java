@@ -1,6 +1,7 @@
 package com.yavlash.microservices.composite.product.services;
 
 import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.composite.product.ProductAggregatePart;
 import com.yavlash.api.composite.product.ProductCompositeService;
 import com.yavlash.api.composite.product.RecommendationSummary;
 import com.yavlash.api.composite.product.ReviewSummary;
@@ -8,53 +9,87 @@ import com.yavlash.api.composite.product.ServiceAddresses;
 import com.yavlash.api.core.product.Product;
 import com.yavlash.api.core.recommendation.Recommendation;
 import com.yavlash.api.core.review.Review;
+import com.yavlash.api.exceptions.BadRequestException;
+import com.yavlash.microservices.composite.product.view.ProductAggregateView;
+import com.yavlash.microservices.composite.product.view.ProductViewEntry;
 import com.yavlash.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.yavlash.microservices.composite.product.services.ProductCompositeIntegration.PRODUCT;
+import static com.yavlash.microservices.composite.product.services.ProductCompositeIntegration.RECOMMENDATION;
+import static com.yavlash.microservices.composite.product.services.ProductCompositeIntegration.REVIEW;
 import static java.util.logging.Level.FINE;
 
 @RestController
 public class ProductCompositeServiceImpl implements ProductCompositeService {
     private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeServiceImpl.class);
+    private static final Comparator<Object> BATCH_PART_ORDER =
+            Comparator.comparingInt(ProductCompositeServiceImpl::productIdOf).thenComparingInt(ProductCompositeServiceImpl::partRank);
     private final ServiceUtil serviceUtil;
     private final ProductCompositeIntegration integration;
+    private final ProductAggregateCache cache;
+    private final ProductAggregateCoalescer coalescer;
+    private final DownstreamMetrics metrics;
+    private final ProductAggregateView view;
+    private final int batchMaxSize;
+    private final int pageSize;
 
     @Autowired
-    public ProductCompositeServiceImpl(ServiceUtil serviceUtil, ProductCompositeIntegration integration) {
+    public ProductCompositeServiceImpl(ServiceUtil serviceUtil, ProductCompositeIntegration integration,
+            ProductAggregateCache cache, ProductAggregateCoalescer coalescer, DownstreamMetrics metrics,
+            ProductAggregateView view,
+            @Value("${app.batchMaxSize:200}") int batchMaxSize,
+            @Value("${app.pageSize:20}") int pageSize) {
         this.serviceUtil = serviceUtil;
         this.integration = integration;
+        this.cache = cache;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.view = view;
+        this.batchMaxSize = batchMaxSize;
+        this.pageSize = pageSize;
     }
 
     @Override
     public Mono<Void> createProduct(ProductAggregate body) {
         try {
-            List<Mono> monoList = new ArrayList<>();
+            List<Mono<?>> monoList = new ArrayList<>();
             LOG.debug("createCompositeProduct: creates a new composite entity for productId: {}", body.getProductId());
             Product product = new Product(body.getProductId(), body.getName(), body.getWeight(), null);
             monoList.add(integration.createProduct(product));
-            if (body.getRecommendations() != null) {
-                body.getRecommendations().forEach(r -> {
-                    Recommendation recommendation = new Recommendation(body.getProductId(), r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null);
-                    monoList.add(integration.createRecommendation(recommendation));
-                });
+            if (body.getRecommendations() != null && !body.getRecommendations().isEmpty()) {
+                List<Recommendation> recommendations = body.getRecommendations().stream()
+                        .map(r -> new Recommendation(body.getProductId(), r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null))
+                        .collect(Collectors.toList());
+                monoList.add(integration.createRecommendations(recommendations));
             }
-            if (body.getReviews() != null) {
-                body.getReviews().forEach(r -> {
-                    Review review = new Review(body.getProductId(), r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null);
-                    monoList.add(integration.createReview(review));
-                });
+            if (body.getReviews() != null && !body.getReviews().isEmpty()) {
+                List<Review> reviews = body.getReviews().stream()
+                        .map(r -> new Review(body.getProductId(), r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null))
+                        .collect(Collectors.toList());
+                monoList.add(integration.createReviews(reviews));
             }
             LOG.debug("createCompositeProduct: composite entities created for productId: {}", body.getProductId());
-            return Mono.zip(r -> "", monoList.toArray(new Mono[0]))
+            return Mono.when(monoList)
                     .doOnError(ex -> LOG.warn("createCompositeProduct failed: {}", ex.toString()))
+                    .doFinally(signal -> cache.evict(body.getProductId()))
                     .then();
         } catch (RuntimeException re) {
             LOG.warn("createCompositeProduct failed: {}", re.toString());
@@ -62,28 +97,71 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
         }
     }
 
+    /**
+     * Answers from the materialized view if it has the product, else from the cache or the core services.
+     */
     @Override
     public Mono<ProductAggregate> getProduct(int productId) {
         LOG.info("Will get composite product info for product.id={}", productId);
-        return Mono.zip(
-                        values -> createProductAggregate((Product) values[0], (List<Recommendation>) values[1], (List<Review>) values[2], serviceUtil.getServiceAddress()),
-                        integration.getProduct(productId),
-                        integration.getRecommendations(productId).collectList(),
-                        integration.getReviews(productId).collectList())
+        Optional<ProductViewEntry> entry = view.get(productId);
+        if (entry.isPresent()) {
+            return Mono.just(createFirstPageAggregate(entry.get().getProduct(), entry.get().getRecommendations(),
+                    entry.get().getReviews(), serviceUtil.getServiceAddress()));
+        }
+        return cache.get(productId, () -> coalescer.get(productId, () -> getProductAggregate(productId)))
                 .doOnError(ex -> LOG.warn("getCompositeProduct failed: {}", ex.toString()))
                 .log(LOG.getName(), FINE);
     }
 
+    /**
+     * Streams the product first and then its recommendations and reviews as they arrive. All three core services
+     * are called at once, recommendations and reviews that arrive before the product are held back until it is sent.
+     * Nothing is collected on the way, a slow review service doesn't hold back the recommendations.
+     */
+    @Override
+    public Flux<ProductAggregatePart> streamProduct(int productId) {
+        LOG.info("Will stream composite product info for product.id={}", productId);
+        String serviceAddress = serviceUtil.getServiceAddress();
+        Flux<ProductAggregatePart> product = integration.getProduct(productId)
+                .map(p -> ProductAggregatePart.product(p.getProductId(), p.getName(), p.getWeight(),
+                        new ServiceAddresses(serviceAddress, p.getServiceAddress(), null, null)))
+                .flux();
+        Flux<ProductAggregatePart> recommendations = integration.streamRecommendations(productId, pageSize)
+                .map(r -> ProductAggregatePart.recommendation(productId,
+                        new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent())));
+        Flux<ProductAggregatePart> reviews = integration.streamReviews(productId, pageSize)
+                .map(r -> ProductAggregatePart.review(productId,
+                        new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent())));
+        return Flux.mergeSequential(product, Flux.merge(recommendations, reviews))
+                .doOnError(ex -> LOG.warn("streamCompositeProduct failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<ProductAggregate> getProducts(List<Integer> productIds) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.size() > batchMaxSize) {
+            throw new BadRequestException("Too many product ids: " + uniqueIds.size() + ", max is: " + batchMaxSize);
+        }
+        LOG.info("Will get composite product info for {} products", uniqueIds.size());
+        if (uniqueIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return cache.getAll(uniqueIds, this::getProductAggregates)
+                .doOnError(ex -> LOG.warn("getCompositeProducts failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
     @Override
     public Mono<Void> deleteProduct(int productId) {
         try {
             LOG.debug("deleteCompositeProduct: Deletes a product aggregate for productId: {}", productId);
-            return Mono.zip(
-                            r -> "",
+            return Mono.when(
                             integration.deleteProduct(productId),
                             integration.deleteRecommendations(productId),
                             integration.deleteReviews(productId))
                     .doOnError(ex -> LOG.warn("delete failed: {}", ex.toString()))
+                    .doFinally(signal -> cache.evict(productId))
                     .log(LOG.getName(), FINE).then();
         } catch (RuntimeException re) {
             LOG.warn("deleteCompositeProduct failed: {}", re.toString());
@@ -91,7 +169,114 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
         }
     }
 
-    private ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+    /**
+     * Reads the product with the first page of its recommendations and reviews. The totals are counted
+     * by the core services only when a page comes back full, a shorter page holds them all. The parallel calls
+     * are timed as one fan-out, tagged with the service that completed last.
+     */
+    private Mono<ProductAggregate> getProductAggregate(int productId) {
+        return Mono.defer(() -> {
+            DownstreamMetrics.FanOut fanOut = metrics.fanOut(productId);
+            return fanOut.record(getProductAggregate(productId, fanOut));
+        });
+    }
+
+    private Mono<ProductAggregate> getProductAggregate(int productId, DownstreamMetrics.FanOut fanOut) {
+        String serviceAddress = serviceUtil.getServiceAddress();
+        if (pageSize <= 0) {
+            return Mono.zip(
+                    values -> createFirstPageAggregate((Product) values[0], (List<Recommendation>) values[1], (List<Review>) values[2], serviceAddress),
+                    fanOut.track(PRODUCT, integration.getProduct(productId)),
+                    fanOut.track(RECOMMENDATION, integration.getRecommendations(productId).collectList()),
+                    fanOut.track(REVIEW, integration.getReviews(productId).collectList()));
+        }
+        return Mono.zip(
+                        fanOut.track(PRODUCT, integration.getProduct(productId)),
+                        fanOut.track(RECOMMENDATION, firstPageWithTotal(integration.getRecommendations(productId, 0, pageSize, null),
+                                () -> integration.countRecommendations(productId))),
+                        fanOut.track(REVIEW, firstPageWithTotal(integration.getReviews(productId, 0, pageSize, null),
+                                () -> integration.countReviews(productId))))
+                .map(values -> createProductAggregate(values.getT1(),
+                        values.getT2().getT1(), values.getT2().getT2().orElse(null),
+                        values.getT3().getT1(), values.getT3().getT2().orElse(null),
+                        serviceAddress));
+    }
+
+    /**
+     * Collects the first page, then counts the total only if the page is full. The total is empty if the
+     * count fails.
+     */
+    private <T> Mono<Tuple2<List<T>, Optional<Long>>> firstPageWithTotal(Flux<T> page, Supplier<Mono<Long>> count) {
+        return page.collectList().flatMap(list -> {
+            Mono<Optional<Long>> total = (list.size() < pageSize)
+                    ? Mono.just(Optional.of((long) list.size()))
+                    : count.get().map(Optional::of).defaultIfEmpty(Optional.empty());
+            return total.map(value -> Tuples.of(list, value));
+        });
+    }
+
+    /**
+     * Assembles the aggregates of the products from one batched call per core service. The batch endpoints return
+     * their results ordered by productId, so the three responses are merge-joined as they arrive: the parts of a
+     * product are collected until the next productId comes up, then its aggregate is emitted. Only the children of
+     * one product are held at a time. Recommendations and reviews of products that are not found are dropped.
+     */
+    private Flux<ProductAggregate> getProductAggregates(List<Integer> productIds) {
+        String serviceAddress = serviceUtil.getServiceAddress();
+        return Flux.mergeComparing(BATCH_PART_ORDER,
+                        integration.getProducts(productIds),
+                        integration.getRecommendations(productIds),
+                        integration.getReviews(productIds))
+                .bufferUntilChanged(ProductCompositeServiceImpl::productIdOf)
+                .handle((parts, sink) -> {
+                    Product product = null;
+                    List<Recommendation> recommendations = new ArrayList<>();
+                    List<Review> reviews = new ArrayList<>();
+                    for (Object part : parts) {
+                        if (part instanceof Product) {
+                            product = (Product) part;
+                        } else if (part instanceof Recommendation) {
+                            recommendations.add((Recommendation) part);
+                        } else {
+                            reviews.add((Review) part);
+                        }
+                    }
+                    if (product != null) {
+                        sink.next(createFirstPageAggregate(product, recommendations, reviews, serviceAddress));
+                    }
+                });
+    }
+
+    private static int productIdOf(Object part) {
+        if (part instanceof Product) {
+            return ((Product) part).getProductId();
+        }
+        return (part instanceof Recommendation) ? ((Recommendation) part).getProductId() : ((Review) part).getProductId();
+    }
+
+    // The product comes before its recommendations and reviews
+    private static int partRank(Object part) {
+        return (part instanceof Product) ? 0 : (part instanceof Recommendation) ? 1 : 2;
+    }
+
+    /**
+     * Creates an aggregate from the complete lists of recommendations and reviews, e.g. of the materialized view,
+     * with the first app.pageSize of each and their sizes as the totals, the same as a read of the first pages.
+     */
+    private ProductAggregate createFirstPageAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+        return createProductAggregate(product,
+                firstPage(recommendations), (long) recommendations.size(),
+                firstPage(reviews), (long) reviews.size(),
+                serviceAddress);
+    }
+
+    private <T> List<T> firstPage(List<T> list) {
+        return (pageSize > 0 && list.size() > pageSize) ? list.subList(0, pageSize) : list;
+    }
+
+    // package-private for the benchmarks module
+    ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, Long totalRecommendations,
+            List<Review> reviews, Long totalReviews, String serviceAddress) {
         int productId = product.getProductId();
         String name = product.getName();
         int weight = product.getWeight();
@@ -107,6 +292,7 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
         String reviewAddress = (reviews != null && reviews.size() > 0) ? reviews.get(0).getServiceAddress() : "";
         String recommendationAddress = (recommendations != null && recommendations.size() > 0) ? recommendations.get(0).getServiceAddress() : "";
         ServiceAddresses serviceAddresses = new ServiceAddresses(serviceAddress, productAddress, reviewAddress, recommendationAddress);
-        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries, serviceAddresses);
+        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries,
+                totalRecommendations, totalReviews, serviceAddresses);
     }
 }
\ No newline at end of file
@@ -0,0 +1,234 @@
+package com.yavlash.microservices.composite.product.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Local read model of the composite products, folded from the product, recommendation and review events.
+ * <p>
+ * The entries are kept by product id in an embedded H2 MVStore file, so a restart continues from the
+ * stored view. With app.materializedView.rebuild the stored view is dropped on startup, to be rebuilt by
+ * consuming the topics from the start. A product without an entry is read from the core services as before.
+ * Without app.materializedView.file the view is kept in memory only and is refilled after every restart, the file
+ * has no default since the temp directory of many hosts is wiped on reboot.
+ * <p>
+ * The product, recommendation and review events come from three topics and are not applied in the order they
+ * were created, so a product is only answered from the view once its CREATE event is settleMs old. Until then
+ * its recommendation and review events may still be on the way and the product is read from the core services.
+ * <p>
+ * The time from the creation of an event to it being applied is recorded by the "product.composite.view.lag"
+ * timer, and the age of the newest applied event by the "product.composite.view.staleness" gauge, both tagged
+ * with the source (product, recommendation, review).
+ */
+@Component
+public class ProductAggregateView {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateView.class);
+    private static final String MAP_NAME = "productAggregates";
+    private static final int LOCK_STRIPES = 64;
+    static final String PRODUCT = "product";
+    static final String RECOMMENDATION = "recommendation";
+    static final String REVIEW = "review";
+    private final boolean enabled;
+    private final long settleMs;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Map<String, AtomicLong> newestEventCreatedAt = new ConcurrentHashMap<>();
+    private MVStore store;
+    private MVMap<Integer, byte[]> entries;
+
+    @Autowired
+    public ProductAggregateView(
+            @Value("${app.materializedView.enabled:false}") boolean enabled,
+            @Value("${app.materializedView.file:}") String file,
+            @Value("${app.materializedView.rebuild:false}") boolean rebuild,
+            @Value("${app.materializedView.settleMs:1000}") long settleMs,
+            ObjectMapper mapper,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.settleMs = settleMs;
+        this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        if (enabled) {
+            open(file);
+            if (rebuild) {
+                LOG.info("Drops the {} entries of the materialized view, to be rebuilt from the topics", entries.size());
+                entries.clear();
+            }
+            Gauge.builder("product.composite.view.size", entries, MVMap::size)
+                    .description("Number of products in the materialized view")
+                    .register(meterRegistry);
+            for (String source : new String[]{PRODUCT, RECOMMENDATION, REVIEW}) {
+                AtomicLong createdAt = new AtomicLong();
+                newestEventCreatedAt.put(source, createdAt);
+                Gauge.builder("product.composite.view.staleness", createdAt, ProductAggregateView::ageSeconds)
+                        .description("Age of the newest event applied to the materialized view")
+                        .tag("source", source)
+                        .baseUnit("seconds")
+                        .register(meterRegistry);
+            }
+        }
+        LOG.info("Creates a materialized view, enabled = {}, file = {}, rebuild = {}, settleMs = {}", enabled, file, rebuild, settleMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Looks up the product, empty if the view is disabled, its product event hasn't been applied or isn't
+     * settled yet. The lookups are counted by result: hit, miss or unsettled.
+     */
+    public Optional<ProductViewEntry> get(int productId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        byte[] value = entries.get(productId);
+        ProductViewEntry entry = value == null ? null : read(value);
+        String result;
+        if (entry == null || entry.getProduct() == null) {
+            result = "miss";
+        } else if (System.currentTimeMillis() - entry.getProductCreatedAt() < settleMs) {
+            result = "unsettled";
+        } else {
+            result = "hit";
+        }
+        meterRegistry.counter("product.composite.view.lookup", "result", result).increment();
+        return "hit".equals(result) ? Optional.of(entry) : Optional.empty();
+    }
+
+    public void applyProductEvent(Event<Integer, Product> event) {
+        switch (event.getEventType()) {
+            case CREATE -> update(PRODUCT, event, entry -> {
+                entry.setProduct(event.getData());
+                entry.setProductCreatedAt(event.getEventCreatedAt() == null ? 0 : event.getEventCreatedAt().toInstant().toEpochMilli());
+            });
+            case DELETE -> update(PRODUCT, event, entry -> entry.setProduct(null));
+            default -> LOG.warn("Ignores a product event of type: {}", event.getEventType());
+        }
+    }
+
+    public void applyRecommendationEvent(Event<Integer, Recommendation> event) {
+        switch (event.getEventType()) {
+            case CREATE -> update(RECOMMENDATION, event, entry -> entry.putRecommendation(event.getData()));
+            case DELETE -> update(RECOMMENDATION, event, ProductViewEntry::clearRecommendations);
+            default -> LOG.warn("Ignores a recommendation event of type: {}", event.getEventType());
+        }
+    }
+
+    public void applyReviewEvent(Event<Integer, Review> event) {
+        switch (event.getEventType()) {
+            case CREATE -> update(REVIEW, event, entry -> entry.putReview(event.getData()));
+            case DELETE -> update(REVIEW, event, ProductViewEntry::clearReviews);
+            default -> LOG.warn("Ignores a review event of type: {}", event.getEventType());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Applies the change to the entry of the event's product. Events of the same product from the three
+     * topics are applied one at a time, a read-modify-write of the entry is not atomic otherwise.
+     */
+    private void update(String source, Event<Integer, ?> event, Consumer<ProductViewEntry> change) {
+        int productId = event.getKey();
+        synchronized (locks[Math.floorMod(productId, LOCK_STRIPES)]) {
+            byte[] value = entries.get(productId);
+            ProductViewEntry entry = value == null ? new ProductViewEntry() : read(value);
+            change.accept(entry);
+            if (entry.isEmpty()) {
+                entries.remove(productId);
+            } else {
+                entries.put(productId, write(entry));
+            }
+        }
+        LOG.debug("Applied a {} {} event for productId: {}", source, event.getEventType(), productId);
+        recordLag(source, event);
+    }
+
+    private void recordLag(String source, Event<Integer, ?> event) {
+        if (event.getEventCreatedAt() == null) {
+            return;
+        }
+        long createdAt = event.getEventCreatedAt().toInstant().toEpochMilli();
+        Timer.builder("product.composite.view.lag")
+                .description("Time from the creation of an event to it being applied to the materialized view")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(Math.max(0, System.currentTimeMillis() - createdAt), TimeUnit.MILLISECONDS);
+        newestEventCreatedAt.get(source).accumulateAndGet(createdAt, Math::max);
+    }
+
+    private static double ageSeconds(AtomicLong createdAt) {
+        long millis = createdAt.get();
+        return millis == 0 ? Double.NaN : Duration.ofMillis(System.currentTimeMillis() - millis).toMillis() / 1000d;
+    }
+
+    private void open(String file) {
+        if (file == null || file.isBlank()) {
+            store = new MVStore.Builder().open();
+        } else {
+            Path path = Paths.get(file);
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create the directory of the materialized view: " + path, e);
+            }
+            store = new MVStore.Builder().fileName(path.toString()).compress().open();
+        }
+        entries = store.openMap(MAP_NAME);
+    }
+
+    private ProductViewEntry read(byte[] value) {
+        try {
+            return mapper.readValue(value, ProductViewEntry.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read an entry of the materialized view", e);
+        }
+    }
+
+    private byte[] write(ProductViewEntry entry) {
+        try {
+            return mapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write an entry of the materialized view", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.yavlash.microservices.composite.product.view;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+/**
+ * Consumers of the product, recommendation and review topics that fold the events into the
+ * {@link ProductAggregateView}, bound by the materialized_view profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.materializedView.enabled", havingValue = "true")
+public class ProductAggregateViewConfig {
+    private final ProductAggregateView view;
+
+    @Autowired
+    public ProductAggregateViewConfig(ProductAggregateView view) {
+        this.view = view;
+    }
+
+    @Bean
+    public Consumer<Event<Integer, Product>> productViewProcessor() {
+        return view::applyProductEvent;
+    }
+
+    @Bean
+    public Consumer<Event<Integer, Recommendation>> recommendationViewProcessor() {
+        return view::applyRecommendationEvent;
+    }
+
+    @Bean
+    public Consumer<Event<Integer, Review>> reviewViewProcessor() {
+        return view::applyReviewEvent;
+    }
+}
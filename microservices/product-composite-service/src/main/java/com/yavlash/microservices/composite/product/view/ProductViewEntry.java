@@ -0,0 +1,78 @@
+package com.yavlash.microservices.composite.product.view;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A product with its recommendations and reviews, as folded from the events. The product is null until its
+ * CREATE event has been applied, the recommendations and reviews are kept ordered by id.
+ */
+public class ProductViewEntry {
+    private Product product;
+    private long productCreatedAt;
+    private Map<Integer, Recommendation> recommendations = new TreeMap<>();
+    private Map<Integer, Review> reviews = new TreeMap<>();
+
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Creation time of the applied product CREATE event in epoch milliseconds, 0 if unknown.
+     */
+    public long getProductCreatedAt() {
+        return productCreatedAt;
+    }
+
+    public List<Recommendation> getRecommendations() {
+        return new ArrayList<>(recommendations.values());
+    }
+
+    public List<Review> getReviews() {
+        return new ArrayList<>(reviews.values());
+    }
+
+    void setProduct(Product product) {
+        this.product = product;
+    }
+
+    void setProductCreatedAt(long productCreatedAt) {
+        this.productCreatedAt = productCreatedAt;
+    }
+
+    void setRecommendations(List<Recommendation> recommendations) {
+        this.recommendations = new TreeMap<>();
+        recommendations.forEach(this::putRecommendation);
+    }
+
+    void setReviews(List<Review> reviews) {
+        this.reviews = new TreeMap<>();
+        reviews.forEach(this::putReview);
+    }
+
+    void putRecommendation(Recommendation recommendation) {
+        recommendations.put(recommendation.getRecommendationId(), recommendation);
+    }
+
+    void putReview(Review review) {
+        reviews.put(review.getReviewId(), review);
+    }
+
+    void clearRecommendations() {
+        recommendations.clear();
+    }
+
+    void clearReviews() {
+        reviews.clear();
+    }
+
+    boolean isEmpty() {
+        return product == null && recommendations.isEmpty() && reviews.isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.microservices.composite.product.services.DownstreamMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class DownstreamMetricsTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DownstreamMetrics metrics = new DownstreamMetrics(registry);
+
+    @Test
+    void callsAreTimedByServiceOutcomeAndInstance() {
+        //given
+        Mono<Product> product = metrics.timed("product", "get",
+                Mono.just(new Product(1, "name", 1, "product-1/10.0.0.1:8080")), Product::getServiceAddress);
+        Flux<Review> reviews = metrics.timed("review", "get",
+                Flux.just(new Review(1, 1, "a", "s", "c", "review-1/10.0.0.2:8080"),
+                        new Review(1, 2, "a", "s", "c", "review-1/10.0.0.2:8080")), Review::getServiceAddress);
+        Mono<Product> failing = metrics.timed("product", "get",
+                Mono.error(new IllegalStateException("failed")), Product::getServiceAddress);
+
+        //when
+        product.block();
+        reviews.collectList().block();
+        assertThrows(IllegalStateException.class, failing::block);
+
+        //then
+        assertEquals(1, downstreamTimer("product", "SUCCESS", "product-1/10.0.0.1:8080").count());
+        assertEquals(1, downstreamTimer("review", "SUCCESS", "review-1/10.0.0.2:8080").count());
+        assertEquals(1, downstreamTimer("product", "ERROR", "unknown").count());
+    }
+
+    @Test
+    void slowestServiceIsTheCriticalPath() {
+        //given
+        DownstreamMetrics.FanOut fanOut = metrics.fanOut(1);
+        Mono<List<Object>> aggregate = Mono.zip(
+                fanOut.track("product", Mono.delay(Duration.ofMillis(10))),
+                fanOut.track("recommendation", Mono.delay(Duration.ofMillis(20))),
+                fanOut.track("review", Mono.delay(Duration.ofMillis(150))),
+                fanOut.track("recommendation", Mono.delay(Duration.ofMillis(30))))
+                .map(values -> List.of(values.getT1(), values.getT2(), values.getT3(), values.getT4()));
+
+        //when
+        fanOut.record(aggregate).block();
+
+        //then
+        Timer timer = registry.find("product.composite.fanout").tag("critical_path", "review").tag("outcome", "SUCCESS").timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 150);
+        assertEquals(1, registry.find("product.composite.fanout").timers().size());
+    }
+
+    private Timer downstreamTimer(String service, String outcome, String instance) {
+        return registry.find("product.composite.downstream")
+                .tag("service", service)
+                .tag("operation", "get")
+                .tag("outcome", outcome)
+                .tag("instance", instance)
+                .timer();
+    }
+}
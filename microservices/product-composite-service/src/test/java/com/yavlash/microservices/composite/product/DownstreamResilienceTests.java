@@ -0,0 +1,143 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.exceptions.NotFoundException;
+import com.yavlash.microservices.composite.product.services.DownstreamResilience;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class DownstreamResilienceTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .ignoreExceptions(NotFoundException.class)
+            .build());
+    private final DownstreamResilience resilience = new DownstreamResilience(100, 60, circuitBreakerRegistry,
+            BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build()),
+            TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(200)).build()),
+            meterRegistry);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void openCircuitServesLastKnownGoodResponse() {
+        //given
+        List<Review> reviews = List.of(new Review(1, 1, "a", "s", "c", "SA"), new Review(1, 2, "a", "s", "c", "SA"));
+        resilience.flux("review", "/review?productId=1", call(Flux.fromIterable(reviews))).collectList().block();
+
+        //when
+        for (int i = 0; i < 4; i++) {
+            resilience.flux("review", "/review?productId=1", call(Flux.error(new IllegalStateException("failed")))).collectList().block();
+        }
+        List<Review> fallback = resilience.flux("review", "/review?productId=1", call(Flux.fromIterable(reviews))).collectList().block();
+
+        //then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("review").getState());
+        assertEquals(2, fallback.size());
+        // The circuit opens after 3 failures out of 4 calls, the later calls never reach the service
+        assertEquals(4, calls.get());
+        assertEquals(5, meterRegistry.counter("product.composite.fallback", "service", "review", "result", "hit").count());
+    }
+
+    @Test
+    void failureWithoutLastKnownGoodResponseIsPassedOn() {
+        //given
+        Flux<Review> failing = call(Flux.error(new IllegalStateException("failed")));
+
+        //when && then
+        assertThrows(IllegalStateException.class, () -> resilience.flux("review", "/review?productId=2", failing).blockLast());
+        assertEquals(1, meterRegistry.counter("product.composite.fallback", "service", "review", "result", "miss").count());
+    }
+
+    @Test
+    void notFoundIsNotReplacedByLastKnownGoodResponse() {
+        //given
+        resilience.mono("product", "/product/1", call(Mono.just("product"))).block();
+
+        //when && then
+        assertThrows(NotFoundException.class,
+                () -> resilience.mono("product", "/product/1", call(Mono.error(new NotFoundException("not found")))).block());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("product").getState());
+    }
+
+    @Test
+    void slowCallTimesOutToLastKnownGoodResponse() {
+        //given
+        resilience.mono("product", "/product/1", call(Mono.just("fast"))).block();
+
+        //when
+        String product = resilience.mono("product", "/product/1", call(Mono.delay(Duration.ofSeconds(5)).map(tick -> "slow"))).block();
+
+        //then
+        assertEquals("fast", product);
+    }
+
+    @Test
+    void fullBulkheadServesLastKnownGoodResponse() {
+        //given
+        resilience.mono("product", "/product/1", call(Mono.just("first"))).block();
+        resilience.mono("product", "/product/1", call(Mono.delay(Duration.ofMillis(100)).map(tick -> "slow"))).subscribe();
+
+        //when
+        String product = resilience.mono("product", "/product/1", call(Mono.just("second"))).block();
+
+        //then
+        assertEquals("first", product);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void elementsArePassedOnAsTheyArrive() {
+        //given
+        Flux<Review> slow = call(Flux.concat(Flux.just(new Review(1, 1, "a", "s", "c", "SA")), Flux.never()));
+
+        //when
+        Review first = resilience.flux("review", "/review?productId=3", slow).blockFirst(Duration.ofSeconds(1));
+
+        //then
+        assertEquals(1, first.getReviewId());
+    }
+
+    @Test
+    void streamedReadIsNotKeptAsLastKnownGood() {
+        //given
+        List<Review> reviews = List.of(new Review(1, 1, "a", "s", "c", "SA"));
+        resilience.stream("review", call(Flux.fromIterable(reviews))).collectList().block();
+
+        //when && then
+        assertThrows(IllegalStateException.class,
+                () -> resilience.stream("review", call(Flux.<Review>error(new IllegalStateException("failed")))).blockLast());
+        assertEquals(0, meterRegistry.find("product.composite.fallback").counters().size());
+    }
+
+    private <T> Mono<T> call(Mono<T> response) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return response;
+        });
+    }
+
+    private <T> Flux<T> call(Flux<T> response) {
+        return Flux.defer(() -> {
+            calls.incrementAndGet();
+            return response;
+        });
+    }
+}
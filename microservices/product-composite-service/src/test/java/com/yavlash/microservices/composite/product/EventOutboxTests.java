@@ -0,0 +1,206 @@
+package com.yavlash.microservices.composite.product;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static com.yavlash.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.event.Event;
+import com.yavlash.microservices.composite.product.outbox.EventOutbox;
+import com.yavlash.microservices.composite.product.outbox.OutboxRecord;
+import com.yavlash.microservices.composite.product.outbox.OutboxRelay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+class EventOutboxTests {
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @TempDir
+    Path directory;
+
+    private EventOutbox outbox;
+
+    @AfterEach
+    void tearDown() {
+        outbox.close();
+    }
+
+    @Test
+    void uncommittedEventsAreReadAfterRestart() {
+        //given
+        outbox = openOutbox();
+        outbox.append("products-out-0", new Event(CREATE, 1, new Product(1, "name", 1, null)));
+        outbox.append("recommendations-out-0", new Event(DELETE, 2, null));
+        outbox.append("reviews-out-0", new Event(DELETE, 3, null));
+        outbox.commit(outbox.read(1).get(0).getEndOffset());
+
+        //when
+        outbox.close();
+        outbox = openOutbox();
+        List<OutboxRecord> records = outbox.read(10);
+
+        //then
+        assertEquals(2, records.size());
+        assertEquals("recommendations-out-0", records.get(0).getBindingName());
+        assertEquals(2, records.get(0).getPartitionKey());
+        assertEquals("reviews-out-0", records.get(1).getBindingName());
+        assertEquals(3, records.get(1).getPartitionKey());
+    }
+
+    @Test
+    void tornTailIsTruncatedOnRestart() throws IOException {
+        //given
+        outbox = openOutbox();
+        outbox.append("products-out-0", new Event(DELETE, 1, null));
+        outbox.close();
+        Files.write(directory.resolve("outbox.log"), new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        //when
+        outbox = openOutbox();
+        outbox.append("products-out-0", new Event(DELETE, 2, null));
+        List<OutboxRecord> records = outbox.read(10);
+
+        //then
+        assertEquals(2, records.size());
+        assertEquals(1, records.get(0).getPartitionKey());
+        assertEquals(2, records.get(1).getPartitionKey());
+    }
+
+    @Test
+    void appendAllKeepsOrder() {
+        //given
+        outbox = openOutbox();
+        List<Event> events = List.of(new Event(DELETE, 1, null), new Event(DELETE, 2, null), new Event(DELETE, 3, null));
+
+        //when
+        outbox.appendAll("reviews-out-0", events);
+        List<OutboxRecord> records = outbox.read(10);
+
+        //then
+        assertEquals(3, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals("reviews-out-0", records.get(i).getBindingName());
+            assertEquals(i + 1, records.get(i).getPartitionKey());
+        }
+    }
+
+    @Test
+    void relayCommitsOnlyAcceptedEvents() {
+        //given
+        outbox = openOutbox();
+        OutboxRelay.Sender sender = mock(OutboxRelay.Sender.class);
+        when(sender.send(eq("products-out-0"), any(Message.class))).thenReturn(true);
+        when(sender.send(eq("reviews-out-0"), any(Message.class))).thenReturn(false, true);
+        OutboxRelay relay = new OutboxRelay(outbox, sender, 10, 50);
+        outbox.append("products-out-0", new Event(DELETE, 1, null));
+        outbox.append("reviews-out-0", new Event(DELETE, 1, null));
+
+        //when
+        int firstDrain = relay.drain();
+        int secondDrain = relay.drain();
+
+        //then
+        assertEquals(1, firstDrain);
+        assertEquals(1, secondDrain);
+        assertEquals(0, outbox.pendingBytes());
+        verify(sender, times(1)).send(eq("products-out-0"), any(Message.class));
+        verify(sender, times(2)).send(eq("reviews-out-0"), any(Message.class));
+    }
+
+    @Test
+    void relayCommitsOnlyConfirmedEvents() {
+        //given
+        outbox = openOutbox();
+        AtomicInteger sends = new AtomicInteger();
+        OutboxRelay.Sender sender = (bindingName, message) -> {
+            CorrelationData correlation = (CorrelationData) message.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION);
+            correlation.getFuture().set(new CorrelationData.Confirm(sends.incrementAndGet() != 2, "nack"));
+            return true;
+        };
+        OutboxRelay relay = new OutboxRelay(outbox, sender, 10, 50, true, 1000);
+        outbox.append("products-out-0", new Event(DELETE, 1, null));
+        outbox.append("products-out-0", new Event(DELETE, 2, null));
+        outbox.append("products-out-0", new Event(DELETE, 3, null));
+
+        //when
+        int firstDrain = relay.drain();
+        List<OutboxRecord> pending = outbox.read(10);
+
+        //then
+        assertEquals(1, firstDrain);
+        assertEquals(2, pending.size());
+        assertEquals(2, pending.get(0).getPartitionKey());
+    }
+
+    @Test
+    void relaySendsEventsInTheContentTypeOfTheBinding() {
+        //given
+        outbox = openOutbox();
+        List<Message<?>> sent = new ArrayList<>();
+        OutboxRelay.Sender sender = (bindingName, message) -> sent.add(message);
+        OutboxRelay relay = new OutboxRelay(outbox, sender,
+                bindingName -> bindingName.startsWith("products") ? "application/x-jackson-smile" : null,
+                mapper, 10, 50, false, 0);
+        outbox.append("products-out-0", new Event(DELETE, 1, null));
+        outbox.append("reviews-out-0", new Event(DELETE, 2, null));
+
+        //when
+        relay.drain();
+
+        //then
+        assertEquals(2, sent.size());
+        assertEquals(1, ((Event<?, ?>) sent.get(0).getPayload()).getKey());
+        assertEquals("application/x-jackson-smile", sent.get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertEquals("application/json", sent.get(1).getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void offsetBeyondTheLogIsResetOnRestart() throws IOException {
+        //given
+        outbox = openOutbox();
+        outbox.append("products-out-0", new Event(DELETE, 1, null));
+        outbox.close();
+        Files.write(directory.resolve("outbox.offset"), "1000".getBytes());
+
+        //when
+        outbox = openOutbox();
+
+        //then
+        assertEquals(Long.toString(Files.size(directory.resolve("outbox.log"))), Files.readString(directory.resolve("outbox.offset")));
+        assertEquals(0, outbox.pendingBytes());
+    }
+
+    @Test
+    void outboxWithoutDirectoryIsRejected() {
+        //given && when && then
+        outbox = new EventOutbox(false, "", false, mapper, new SimpleMeterRegistry());
+        assertThrows(IllegalStateException.class, () -> new EventOutbox(true, "", false, mapper, new SimpleMeterRegistry()));
+    }
+
+    private EventOutbox openOutbox() {
+        return new EventOutbox(true, directory.toString(), false, mapper, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,109 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.yavlash.microservices.composite.product.services.HealthService;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class HealthServiceTests {
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ReactiveDiscoveryClient discoveryClient = mock(ReactiveDiscoveryClient.class);
+    private final HealthService healthService = new HealthService(60000, 1000, 60000, WebClient.builder().exchangeFunction(request -> {
+        requests.incrementAndGet();
+        switch (request.url().getHost()) {
+            case "up":
+                return Mono.just(health(OK, "UP"));
+            case "down":
+                return Mono.just(health(SERVICE_UNAVAILABLE, "DOWN"));
+            default:
+                return Mono.error(new WebClientRequestException(new IllegalStateException("Connection refused"),
+                        request.method(), request.url(), request.headers()));
+        }
+    }), discoveryClient);
+
+    @BeforeEach
+    void setUp() {
+        when(discoveryClient.getInstances(anyString())).thenReturn(Flux.empty());
+    }
+
+    @Test
+    void healthIsUnknownUntilPolled() {
+        //when
+        Health health = healthService.getProductHealth().block();
+
+        //then
+        assertEquals(Status.UNKNOWN, health.getStatus());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void serviceIsUpIfAnyInstanceIsUp() {
+        //given
+        instances("product", "down", "up", "unreachable");
+
+        //when
+        healthService.poll().block();
+        Health first = healthService.getProductHealth().block();
+        Health second = healthService.getProductHealth().block();
+
+        //then
+        assertEquals(Status.UP, first.getStatus());
+        assertEquals(Map.of("down:8080", "DOWN", "up:8080", "UP", "unreachable:8080", "DOWN"), instanceStatuses(first));
+        assertEquals(first, second);
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void serviceIsDownIfNoInstanceIsUp() {
+        //given
+        instances("review", "down", "unreachable");
+        instances("recommendation");
+
+        //when
+        healthService.poll().block();
+
+        //then
+        assertEquals(Status.DOWN, healthService.getReviewHealth().block().getStatus());
+        assertEquals(Status.DOWN, healthService.getRecommendationHealth().block().getStatus());
+    }
+
+    private void instances(String serviceId, String... hosts) {
+        when(discoveryClient.getInstances(serviceId)).thenReturn(Flux.fromArray(hosts)
+                .map(host -> new DefaultServiceInstance(serviceId + "-" + host, serviceId, host, 8080, false)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> instanceStatuses(Health health) {
+        Map<String, Map<String, Object>> instances = (Map<String, Map<String, Object>>) health.getDetails().get("instances");
+        return instances.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> (String) e.getValue().get("status")));
+    }
+
+    private static ClientResponse health(HttpStatus status, String code) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                .body("{\"status\":\"" + code + "\"}")
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.microservices.composite.product.services.HedgedRequests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+class HedgedRequestsTests {
+    private static final ServiceInstance SLOW = new DefaultServiceInstance("product-1", "product", "slow", 8080, false);
+    private static final ServiceInstance FAST = new DefaultServiceInstance("product-2", "product", "fast", 8080, false);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    void slowReadIsHedgedToAnotherInstance() {
+        //given
+        HedgedRequests hedging = hedging(List.of(SLOW, FAST));
+
+        //when
+        long start = System.nanoTime();
+        Product product = hedging.getMono("product", "/product/1", Product.class).block();
+        long millis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        //then
+        assertEquals("fast", product.getServiceAddress());
+        assertTrue(millis < 2000, "Took " + millis + " ms");
+        assertEquals(2, requests.get());
+        assertEquals(1, hedgeCount("eligible"));
+        assertEquals(1, hedgeCount("sent"));
+        assertEquals(1, hedgeCount("won"));
+    }
+
+    @Test
+    void fastReadIsNotHedged() {
+        //given
+        HedgedRequests hedging = hedging(List.of(FAST, SLOW));
+
+        //when
+        Product product = hedging.getMono("product", "/product/1", Product.class).block();
+
+        //then
+        assertEquals("fast", product.getServiceAddress());
+        assertEquals(1, requests.get());
+        assertEquals(0, hedgeCount("sent"));
+    }
+
+    @Test
+    void singleInstanceIsNotHedged() {
+        //given
+        HedgedRequests hedging = hedging(List.of(SLOW));
+
+        //when
+        Product product = hedging.getMono("product", "/product/1", Product.class).block();
+
+        //then
+        assertEquals("slow", product.getServiceAddress());
+        assertEquals(1, requests.get());
+        assertEquals(1, hedgeCount("no_instance"));
+        assertEquals(0, hedgeCount("won"));
+    }
+
+    private HedgedRequests hedging(List<ServiceInstance> instances) {
+        AtomicInteger next = new AtomicInteger();
+        ReactiveLoadBalancer<ServiceInstance> roundRobin = request ->
+                Mono.just(new DefaultResponse(instances.get(next.getAndIncrement() % instances.size())));
+        ReactiveLoadBalancer.Factory<ServiceInstance> factory = mock(ReactiveLoadBalancer.Factory.class);
+        when(factory.getInstance("product")).thenReturn(roundRobin);
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            requests.incrementAndGet();
+            String host = request.url().getHost();
+            return Mono.delay(Duration.ofMillis(host.equals("slow") ? 2000 : 10))
+                    .map(tick -> ClientResponse.create(OK)
+                            .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                            .body("{\"productId\":1,\"name\":\"name\",\"weight\":1,\"serviceAddress\":\"" + host + "\"}")
+                            .build());
+        });
+        return new HedgedRequests(true, 0.95, 5, 50, 100, builder, factory, registry);
+    }
+
+    private double hedgeCount(String event) {
+        return registry.counter("product.composite.hedge", "service", "product", "event", event).count();
+    }
+}
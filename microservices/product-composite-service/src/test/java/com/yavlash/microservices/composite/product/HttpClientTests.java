@@ -0,0 +1,80 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.yavlash.microservices.composite.product.config.ApplicationConfiguration;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+class HttpClientTests {
+    private final ApplicationConfiguration configuration = new ApplicationConfiguration();
+    private DisposableServer server;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() {
+        // Answers with the protocol of the request, like a core service with server.http2.enabled
+        server = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .handle((request, response) -> response.sendString(Mono.just(
+                        request.requestHeaders().contains("x-http2-stream-id") ? "HTTP/2.0" : "HTTP/1.1")))
+                .bindNow();
+        connectionProvider = configuration.coreServicesConnectionProvider(2, 10, 1000, 30000, 300000, 30000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        server.disposeNow();
+    }
+
+    @Test
+    void callsAreUpgradedToHttp2() {
+        //when
+        String protocol = get(true);
+
+        //then
+        assertEquals("HTTP/2.0", protocol);
+    }
+
+    @Test
+    void callsStayOnHttp11WithoutH2c() {
+        //when
+        String protocol = get(false);
+
+        //then
+        assertEquals("HTTP/1.1", protocol);
+    }
+
+    @Test
+    void poolMetricsAreTaggedWithTheRemoteAddress() {
+        //given
+        get(false);
+
+        //when && then
+        assertNotNull(Metrics.globalRegistry.find("reactor.netty.connection.provider.total.connections")
+                .tag("name", "core-services")
+                .tag("remote.address", "localhost:" + server.port())
+                .gauge());
+    }
+
+    private String get(boolean h2c) {
+        WebClient webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(
+                        configuration.coreServicesHttpClient(connectionProvider, h2c, 5000)))
+                .build();
+        return webClient.get().uri("http://localhost:" + server.port() + "/actuator/health")
+                .retrieve().bodyToMono(String.class).block();
+    }
+}
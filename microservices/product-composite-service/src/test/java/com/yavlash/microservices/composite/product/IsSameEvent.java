@@ -31,6 +31,7 @@ public class IsSameEvent extends TypeSafeMatcher<String> {
         LOG.trace("Convert the following json string to a map: {}", eventAsJson);
         Map mapEvent = convertJsonStringToMap(eventAsJson);
         mapEvent.remove("eventCreatedAt");
+        mapEvent.remove("eventId");
         Map mapExpectedEvent = getMapWithoutCreatedAt(expectedEvent);
         LOG.trace("Got the map: {}", mapEvent);
         LOG.trace("Compare to the expected map: {}", mapExpectedEvent);
@@ -50,6 +51,7 @@ public class IsSameEvent extends TypeSafeMatcher<String> {
     private Map getMapWithoutCreatedAt(Event event) {
         Map mapEvent = convertObjectToMap(event);
         mapEvent.remove("eventCreatedAt");
+        mapEvent.remove("eventId");
         return mapEvent;
     }
 
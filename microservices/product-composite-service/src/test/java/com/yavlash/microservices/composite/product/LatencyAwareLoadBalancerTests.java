@@ -0,0 +1,153 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.yavlash.microservices.composite.product.loadbalancer.LatencyAwareLoadBalancer;
+import com.yavlash.microservices.composite.product.loadbalancer.LatencyAwareLoadBalancer.Strategy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+/**
+ * Simulates clients against stub instances with skewed latencies, on a virtual clock.
+ */
+class LatencyAwareLoadBalancerTests {
+    private static final int CONCURRENCY = 6;
+    private static final int REQUESTS = 5000;
+    private static final Map<String, Long> LATENCY_MS = Map.of("fast-1", 10L, "fast-2", 12L, "slow", 100L);
+    private final AtomicLong clock = new AtomicLong(1);
+
+    @Test
+    void powerOfTwoChoicesAvoidsTheSlowInstance() {
+        //given
+        LatencyAwareLoadBalancer loadBalancer = latencyAware(Strategy.POWER_OF_TWO_CHOICES);
+
+        //when
+        Simulation latencyAware = simulate(loadBalancer, loadBalancer);
+        Simulation roundRobin = simulate(new RoundRobinLoadBalancer(suppliers(), "product"), null);
+
+        //then
+        assertTrue(latencyAware.share("slow") < 0.1, "Slow share: " + latencyAware.share("slow"));
+        assertTrue(roundRobin.share("slow") > 0.3, "Slow share: " + roundRobin.share("slow"));
+        assertTrue(latencyAware.meanLatencyMs() < roundRobin.meanLatencyMs() / 2,
+                latencyAware.meanLatencyMs() + " ms vs " + roundRobin.meanLatencyMs() + " ms");
+    }
+
+    @Test
+    void leastLoadedAvoidsTheSlowInstance() {
+        //given
+        LatencyAwareLoadBalancer loadBalancer = latencyAware(Strategy.LEAST_LOADED);
+
+        //when
+        Simulation simulation = simulate(loadBalancer, loadBalancer);
+
+        //then
+        assertTrue(simulation.share("slow") < 0.1, "Slow share: " + simulation.share("slow"));
+        assertTrue(simulation.share("fast-1") > 0.3, "Fast share: " + simulation.share("fast-1"));
+        assertTrue(simulation.share("fast-2") > 0.3, "Fast share: " + simulation.share("fast-2"));
+    }
+
+    private LatencyAwareLoadBalancer latencyAware(Strategy strategy) {
+        return new LatencyAwareLoadBalancer(suppliers(), "product", strategy, 1000, 1000, clock::get, new Random(42));
+    }
+
+    private ObjectProvider<ServiceInstanceListSupplier> suppliers() {
+        List<ServiceInstance> instances = List.of(
+                new DefaultServiceInstance("product-1", "product", "fast-1", 8080, false),
+                new DefaultServiceInstance("product-2", "product", "fast-2", 8080, false),
+                new DefaultServiceInstance("product-3", "product", "slow", 8080, false));
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return "product";
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        return new StaticListableBeanFactory(Map.of("supplier", supplier)).getBeanProvider(ServiceInstanceListSupplier.class);
+    }
+
+    /**
+     * Runs a fixed number of clients that each send a new request as soon as the previous one is answered.
+     */
+    private Simulation simulate(ReactorServiceInstanceLoadBalancer loadBalancer, LatencyAwareLoadBalancer lifecycle) {
+        Simulation simulation = new Simulation();
+        PriorityQueue<InFlight> inFlight = new PriorityQueue<>((a, b) -> Long.compare(a.finishesAt, b.finishesAt));
+        for (int i = 0; i < CONCURRENCY; i++) {
+            inFlight.add(start(loadBalancer, lifecycle, simulation));
+        }
+        for (int i = 0; i < REQUESTS; i++) {
+            InFlight next = inFlight.poll();
+            clock.set(next.finishesAt);
+            if (lifecycle != null) {
+                lifecycle.onComplete(new CompletionContext(CompletionContext.Status.SUCCESS, next.request, next.response));
+            }
+            inFlight.add(start(loadBalancer, lifecycle, simulation));
+        }
+        return simulation;
+    }
+
+    private InFlight start(ReactorServiceInstanceLoadBalancer loadBalancer, LatencyAwareLoadBalancer lifecycle, Simulation simulation) {
+        Request request = new DefaultRequest<>(new RequestDataContext());
+        Response<ServiceInstance> response = loadBalancer.choose(request).block();
+        if (lifecycle != null) {
+            lifecycle.onStartRequest(request, response);
+        }
+        String host = response.getServer().getHost();
+        long latencyMs = LATENCY_MS.get(host);
+        simulation.record(host, latencyMs);
+        return new InFlight(request, response, clock.get() + latencyMs * 1_000_000L);
+    }
+
+    private static class InFlight {
+        final Request request;
+        final Response<ServiceInstance> response;
+        final long finishesAt;
+
+        InFlight(Request request, Response<ServiceInstance> response, long finishesAt) {
+            this.request = request;
+            this.response = response;
+            this.finishesAt = finishesAt;
+        }
+    }
+
+    private static class Simulation {
+        private final Map<String, Integer> picks = new HashMap<>();
+        private long totalLatencyMs;
+        private int total;
+
+        void record(String host, long latencyMs) {
+            picks.merge(host, 1, Integer::sum);
+            totalLatencyMs += latencyMs;
+            total++;
+        }
+
+        double share(String host) {
+            return picks.getOrDefault(host, 0) / (double) total;
+        }
+
+        double meanLatencyMs() {
+            return totalLatencyMs / (double) total;
+        }
+    }
+}
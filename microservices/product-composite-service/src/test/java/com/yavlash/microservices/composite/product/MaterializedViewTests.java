@@ -0,0 +1,94 @@
+package com.yavlash.microservices.composite.product;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import com.yavlash.microservices.composite.product.services.ProductCompositeIntegration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+		"eureka.client.enabled=false",
+		"app.materializedView.file=",
+		"app.materializedView.settleMs=0",
+		"app.pageSize=2"})
+@ActiveProfiles("materialized_view")
+@Import({TestChannelBinderConfiguration.class})
+class MaterializedViewTests {
+	private static final int PRODUCT_ID = 1;
+
+	@Autowired
+	private WebTestClient client;
+
+	@Autowired
+	private InputDestination input;
+
+	@MockBean
+	private ProductCompositeIntegration compositeIntegration;
+
+	@Test
+	void getProductFromTheView() {
+		//given
+		send("products", new Event<>(CREATE, PRODUCT_ID, new Product(PRODUCT_ID, "name", 1, null)));
+		send("recommendations", new Event<>(CREATE, PRODUCT_ID, new Recommendation(PRODUCT_ID, 1, "author", 1, "content", null)));
+		send("reviews", new Event<>(CREATE, PRODUCT_ID, new Review(PRODUCT_ID, 1, "author", "subject", "content", null)));
+		send("reviews", new Event<>(CREATE, PRODUCT_ID, new Review(PRODUCT_ID, 2, "author", "subject", "content", null)));
+
+		//when && then
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.name").isEqualTo("name")
+				.jsonPath("$.recommendations.length()").isEqualTo(1)
+				.jsonPath("$.reviews.length()").isEqualTo(2)
+				.jsonPath("$.totalReviews").isEqualTo(2);
+		verifyNoInteractions(compositeIntegration);
+	}
+
+	@Test
+	void getFirstPageFromTheView() {
+		//given
+		int productId = 2;
+		send("products", new Event<>(CREATE, productId, new Product(productId, "name", 1, null)));
+		send("recommendations", new Event<>(CREATE, productId, new Recommendation(productId, 1, "author", 1, "content", null)));
+		for (int reviewId = 3; reviewId > 0; reviewId--) {
+			send("reviews", new Event<>(CREATE, productId, new Review(productId, reviewId, "author", "subject", "content", null)));
+		}
+
+		//when && then
+		client.get()
+				.uri("/product-composite/" + productId)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.recommendations.length()").isEqualTo(1)
+				.jsonPath("$.totalRecommendations").isEqualTo(1)
+				.jsonPath("$.reviews.length()").isEqualTo(2)
+				.jsonPath("$.reviews[0].reviewId").isEqualTo(1)
+				.jsonPath("$.reviews[1].reviewId").isEqualTo(2)
+				.jsonPath("$.totalReviews").isEqualTo(3);
+		verifyNoInteractions(compositeIntegration);
+	}
+
+	private void send(String destination, Event<Integer, ?> event) {
+		input.send(MessageBuilder.withPayload(event).build(), destination);
+	}
+}
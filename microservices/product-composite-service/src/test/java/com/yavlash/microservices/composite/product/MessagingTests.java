@@ -13,6 +13,8 @@ import static reactor.core.publisher.Mono.just;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.yavlash.api.composite.product.ProductAggregate;
 import com.yavlash.api.composite.product.RecommendationSummary;
@@ -107,6 +109,27 @@ class MessagingTests {
         assertThat(reviewMessages.get(0), is(sameEventExceptCreatedAt(expectedReviewEvent)));
     }
 
+    @Test
+    void createCompositeProductKeepsOrderOfReviews() {
+        //given
+        List<ReviewSummary> reviews = IntStream.rangeClosed(1, 200)
+                .mapToObj(reviewId -> new ReviewSummary(reviewId, "a", "s", "c"))
+                .collect(Collectors.toList());
+        ProductAggregate composite = new ProductAggregate(1, "name", 1, null, reviews, null);
+
+        //when
+        postAndVerifyProduct(composite, ACCEPTED);
+
+        //then
+        final List<String> reviewMessages = getMessages("reviews");
+        assertEquals(200, reviewMessages.size());
+        for (int i = 0; i < reviewMessages.size(); i++) {
+            Event<Integer, Review> expectedReviewEvent =
+                    new Event(CREATE, 1, new Review(1, i + 1, "a", "s", "c", null));
+            assertThat(reviewMessages.get(i), is(sameEventExceptCreatedAt(expectedReviewEvent)));
+        }
+    }
+
     @Test
     void deleteCompositeProduct() {
         deleteAndVerifyProduct(1, ACCEPTED);
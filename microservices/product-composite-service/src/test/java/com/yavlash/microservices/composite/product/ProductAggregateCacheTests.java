@@ -0,0 +1,84 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.microservices.composite.product.services.DegradedReads;
+import com.yavlash.microservices.composite.product.services.ProductAggregateCache;
+import com.yavlash.microservices.composite.product.services.ProductAggregateCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ProductAggregateCacheTests {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void evictionOnlySkipsCachingLoadsOfTheSameProduct() {
+        //given
+        ProductAggregateCache cache = cache(0);
+        Supplier<Mono<ProductAggregate>> slowLoader1 = () -> Mono.delay(Duration.ofMillis(100)).map(tick -> aggregate(1));
+        Supplier<Mono<ProductAggregate>> slowLoader2 = () -> Mono.delay(Duration.ofMillis(100)).map(tick -> aggregate(2));
+
+        //when
+        Mono<ProductAggregate> load1 = cache.get(1, slowLoader1);
+        Mono<ProductAggregate> load2 = cache.get(2, slowLoader2);
+        Mono.when(load1, load2, Mono.delay(Duration.ofMillis(20)).doOnNext(tick -> cache.evict(1))).block();
+        cache.get(1, () -> Mono.fromSupplier(() -> aggregate(1))).block();
+        cache.get(2, () -> Mono.fromSupplier(() -> aggregate(2))).block();
+
+        //then
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void productIsEvictedAgainAfterTheDelay() throws InterruptedException {
+        //given
+        ProductAggregateCache cache = cache(100);
+        Supplier<Mono<ProductAggregate>> loader = () -> Mono.fromSupplier(() -> aggregate(1));
+
+        //when
+        cache.evict(1);
+        cache.get(1, loader).block();
+        cache.get(1, loader).block();
+        Thread.sleep(300);
+        cache.get(1, loader).block();
+
+        //then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void aggregateWithFailedReviewsIsNotCached() {
+        //given
+        ProductAggregateCache cache = cache(0);
+        ProductAggregateCoalescer coalescer = new ProductAggregateCoalescer(true, new SimpleMeterRegistry());
+        Supplier<Mono<ProductAggregate>> reviewsFail = () -> Flux.<Review>error(new IllegalStateException("review service failed"))
+                .onErrorResume(error -> DegradedReads.fallback(Flux.empty()))
+                .collectList()
+                .map(reviews -> aggregate(1));
+        Supplier<Mono<ProductAggregate>> reviewsRecovered = () -> Mono.fromSupplier(() -> aggregate(1));
+
+        //when
+        cache.get(1, () -> coalescer.get(1, reviewsFail)).block();
+        cache.get(1, () -> coalescer.get(1, reviewsRecovered)).block();
+        cache.get(1, () -> coalescer.get(1, reviewsRecovered)).block();
+
+        //then
+        assertEquals(2, loads.get());
+    }
+
+    private ProductAggregateCache cache(long evictAgainAfterMs) {
+        return new ProductAggregateCache(true, 100, 60, evictAgainAfterMs, new SimpleMeterRegistry());
+    }
+
+    private ProductAggregate aggregate(int productId) {
+        loads.incrementAndGet();
+        return new ProductAggregate(productId, "name", 1, null, null, null);
+    }
+}
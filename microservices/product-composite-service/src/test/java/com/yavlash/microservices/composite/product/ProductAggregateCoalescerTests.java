@@ -0,0 +1,52 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.microservices.composite.product.services.ProductAggregateCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class ProductAggregateCoalescerTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProductAggregateCoalescer coalescer = new ProductAggregateCoalescer(true, registry);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentReadsShareOneRequest() {
+        //given
+        Supplier<Mono<ProductAggregate>> loader = () -> Mono.delay(Duration.ofMillis(100))
+                .map(tick -> new ProductAggregate(loads.incrementAndGet(), "name", 1, null, null, null));
+
+        //when
+        ProductAggregate[] results = Mono.zip(coalescer.get(1, loader), coalescer.get(1, loader), coalescer.get(1, loader))
+                .map(t -> new ProductAggregate[]{t.getT1(), t.getT2(), t.getT3()})
+                .block();
+        ProductAggregate next = coalescer.get(1, loader).block();
+
+        //then
+        assertEquals(1, results[0].getProductId());
+        assertEquals(1, results[1].getProductId());
+        assertEquals(1, results[2].getProductId());
+        assertEquals(2, next.getProductId());
+        assertEquals(2, loads.get());
+        assertEquals(2.0, registry.counter("product.composite.aggregate.requests", "source", "originated").count());
+        assertEquals(2.0, registry.counter("product.composite.aggregate.requests", "source", "coalesced").count());
+    }
+
+    @Test
+    void failedRequestIsNotShared() {
+        //given
+        Supplier<Mono<ProductAggregate>> failing = () -> Mono.error(new IllegalStateException("failed " + loads.incrementAndGet()));
+
+        //when && then
+        assertThrows(IllegalStateException.class, () -> coalescer.get(1, failing).block());
+        assertThrows(IllegalStateException.class, () -> coalescer.get(1, failing).block());
+        assertEquals(2, loads.get());
+    }
+}
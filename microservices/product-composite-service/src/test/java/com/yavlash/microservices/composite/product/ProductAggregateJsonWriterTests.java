@@ -0,0 +1,73 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.composite.product.RecommendationSummary;
+import com.yavlash.api.composite.product.ReviewSummary;
+import com.yavlash.api.composite.product.ServiceAddresses;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.microservices.composite.product.services.ProductAggregateJsonWriter;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProductAggregateJsonWriterTests {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void writesTheSameJsonAsTheProductAggregate() throws IOException {
+        //given
+        Product product = new Product(1, "name", 2, "product-address");
+        List<Recommendation> recommendations = List.of(
+                new Recommendation(1, 1, "author 1", 1, "content 1", "recommendation-address"),
+                new Recommendation(1, 2, "author \"2\"", 5, "content 2", "recommendation-address"));
+        List<Review> reviews = List.of(new Review(1, 1, "author", "subject", "content", "review-address"));
+        ProductAggregate expected = new ProductAggregate(1, "name", 2,
+                List.of(new RecommendationSummary(1, "author 1", 1, "content 1"), new RecommendationSummary(2, "author \"2\"", 5, "content 2")),
+                List.of(new ReviewSummary(1, "author", "subject", "content")),
+                25L, null,
+                new ServiceAddresses("composite-address", "product-address", "review-address", "recommendation-address"));
+
+        //when
+        byte[] json = new ProductAggregateJsonWriter(mapper.getFactory(), false).write(mapper.writeValueAsBytes(product),
+                mapper.writeValueAsBytes(recommendations), 25L, mapper.writeValueAsBytes(reviews), null, "composite-address");
+
+        //then
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(expected)), mapper.readTree(json));
+    }
+
+    @Test
+    void countsTheElementsWithoutServiceAddresses() throws IOException {
+        //given
+        byte[] product = "{\"productId\":1,\"name\":\"name\",\"weight\":2,\"serviceAddress\":\"product-address\"}".getBytes();
+        byte[] recommendations = "[]".getBytes();
+        byte[] reviews = "[{\"productId\":1,\"reviewId\":1},{\"productId\":1,\"reviewId\":2}]".getBytes();
+
+        //when
+        JsonNode json = mapper.readTree(new ProductAggregateJsonWriter(mapper.getFactory(), true)
+                .write(product, recommendations, null, reviews, null, "composite-address"));
+
+        //then
+        assertEquals(0, json.get("totalRecommendations").asInt());
+        assertEquals(2, json.get("totalReviews").asInt());
+        assertEquals("", json.get("serviceAddresses").get("rec").asText());
+        assertEquals("", json.get("serviceAddresses").get("rev").asText());
+        assertEquals(2, json.get("reviews").get(1).get("reviewId").asInt());
+        assertEquals(1, json.get("reviews").get(1).size());
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        //given
+        ProductAggregateJsonWriter writer = new ProductAggregateJsonWriter(mapper.getFactory(), true);
+
+        //when && then
+        assertThrows(IOException.class, () -> writer.write("{}".getBytes(), "{}".getBytes(), null, "[]".getBytes(), null, "composite-address"));
+    }
+}
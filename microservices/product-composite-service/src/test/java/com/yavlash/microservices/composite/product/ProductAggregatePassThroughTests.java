@@ -0,0 +1,81 @@
+package com.yavlash.microservices.composite.product;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import com.yavlash.api.exceptions.NotFoundException;
+import com.yavlash.microservices.composite.product.services.ProductCompositeIntegration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"eureka.client.enabled=false", "app.passThrough.enabled=true"})
+class ProductAggregatePassThroughTests {
+	private static final int PRODUCT_ID_OK = 1;
+	private static final int PRODUCT_ID_NOT_FOUND = 2;
+	private static final int PAGE_SIZE = 20;
+
+	@Autowired
+	private WebTestClient client;
+
+	@MockBean
+	private ProductCompositeIntegration compositeIntegration;
+
+	@BeforeEach
+	void setUp() {
+		when(compositeIntegration.getProductJson(PRODUCT_ID_OK)).thenReturn(Mono.just(
+				"{\"productId\":1,\"name\":\"name\",\"weight\":1,\"serviceAddress\":\"mock-address\"}".getBytes()));
+		when(compositeIntegration.getRecommendationsJson(PRODUCT_ID_OK, 0, PAGE_SIZE)).thenReturn(Mono.just(
+				"[{\"productId\":1,\"recommendationId\":1,\"author\":\"author\",\"rate\":1,\"content\":\"content\",\"serviceAddress\":\"mock address\"}]".getBytes()));
+		when(compositeIntegration.getReviewsJson(PRODUCT_ID_OK, 0, PAGE_SIZE)).thenReturn(Mono.just("[]".getBytes()));
+		when(compositeIntegration.countRecommendations(PRODUCT_ID_OK)).thenReturn(Mono.just(25L));
+		when(compositeIntegration.countReviews(PRODUCT_ID_OK)).thenReturn(Mono.empty());
+		when(compositeIntegration.getProductJson(PRODUCT_ID_NOT_FOUND))
+				.thenReturn(Mono.error(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND)));
+		when(compositeIntegration.getRecommendationsJson(PRODUCT_ID_NOT_FOUND, 0, PAGE_SIZE)).thenReturn(Mono.just("[]".getBytes()));
+		when(compositeIntegration.getReviewsJson(PRODUCT_ID_NOT_FOUND, 0, PAGE_SIZE)).thenReturn(Mono.just("[]".getBytes()));
+		when(compositeIntegration.countRecommendations(PRODUCT_ID_NOT_FOUND)).thenReturn(Mono.empty());
+		when(compositeIntegration.countReviews(PRODUCT_ID_NOT_FOUND)).thenReturn(Mono.empty());
+	}
+
+	@Test
+	void getProductById() {
+		//given && when && then
+		getAndVerifyProduct(PRODUCT_ID_OK, OK)
+				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
+				.jsonPath("$.recommendations.length()").isEqualTo(1)
+				.jsonPath("$.recommendations[0].productId").doesNotExist()
+				.jsonPath("$.recommendations[0].serviceAddress").doesNotExist()
+				.jsonPath("$.reviews.length()").isEqualTo(0)
+				.jsonPath("$.totalRecommendations").isEqualTo(25)
+				.jsonPath("$.totalReviews").doesNotExist()
+				.jsonPath("$.serviceAddresses.pro").isEqualTo("mock-address")
+				.jsonPath("$.serviceAddresses.rec").isEqualTo("mock address");
+	}
+
+	@Test
+	void getProductNotFound() {
+		//given && when && then
+		getAndVerifyProduct(PRODUCT_ID_NOT_FOUND, NOT_FOUND)
+				.jsonPath("$.path").isEqualTo("/product-composite/" + PRODUCT_ID_NOT_FOUND)
+				.jsonPath("$.message").isEqualTo("NOT FOUND: " + PRODUCT_ID_NOT_FOUND);
+	}
+
+	private WebTestClient.BodyContentSpec getAndVerifyProduct(int productId, HttpStatus expectedStatus) {
+		return client.get()
+				.uri("/product-composite/" + productId)
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isEqualTo(expectedStatus)
+				.expectHeader().contentType(APPLICATION_JSON)
+				.expectBody();
+	}
+}
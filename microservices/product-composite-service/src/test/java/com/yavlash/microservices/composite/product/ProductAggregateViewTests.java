@@ -0,0 +1,110 @@
+package com.yavlash.microservices.composite.product;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static com.yavlash.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.core.recommendation.Recommendation;
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import com.yavlash.microservices.composite.product.view.ProductAggregateView;
+import com.yavlash.microservices.composite.product.view.ProductViewEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProductAggregateViewTests {
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void foldsTheEventsOfAProduct() {
+        //given
+        ProductAggregateView view = view("", false);
+
+        //when
+        view.applyReviewEvent(new Event<>(CREATE, 1, new Review(1, 1, "author", "subject", "content", null)));
+        boolean foundBeforeProduct = view.get(1).isPresent();
+        view.applyProductEvent(new Event<>(CREATE, 1, new Product(1, "name", 1, null)));
+        view.applyRecommendationEvent(new Event<>(CREATE, 1, new Recommendation(1, 2, "author", 1, "content", null)));
+        view.applyRecommendationEvent(new Event<>(CREATE, 1, new Recommendation(1, 1, "author", 1, "content", null)));
+        view.applyRecommendationEvent(new Event<>(CREATE, 1, new Recommendation(1, 1, "author", 1, "content", null)));
+        ProductViewEntry entry = view.get(1).orElseThrow();
+
+        //then
+        assertFalse(foundBeforeProduct);
+        assertEquals("name", entry.getProduct().getName());
+        assertEquals(List.of(1, 2), entry.getRecommendations().stream().map(Recommendation::getRecommendationId).collect(Collectors.toList()));
+        assertEquals(1, entry.getReviews().size());
+        assertEquals(5, meterRegistry.get("product.composite.view.lag").timers().stream().mapToLong(timer -> timer.count()).sum());
+        assertTrue(meterRegistry.get("product.composite.view.staleness").tag("source", "product").gauge().value() < 60);
+    }
+
+    @Test
+    void deleteEventsRemoveTheProduct() {
+        //given
+        ProductAggregateView view = view("", false);
+        view.applyProductEvent(new Event<>(CREATE, 1, new Product(1, "name", 1, null)));
+        view.applyReviewEvent(new Event<>(CREATE, 1, new Review(1, 1, "author", "subject", "content", null)));
+
+        //when
+        view.applyProductEvent(new Event<>(DELETE, 1, null));
+        view.applyRecommendationEvent(new Event<>(DELETE, 1, null));
+        view.applyReviewEvent(new Event<>(DELETE, 1, null));
+
+        //then
+        assertFalse(view.get(1).isPresent());
+        assertEquals(0, meterRegistry.get("product.composite.view.size").gauge().value());
+    }
+
+    @Test
+    void storedViewIsKeptUnlessRebuilt() {
+        //given
+        String file = directory.resolve("view.mv").toString();
+        ProductAggregateView view = view(file, false);
+        view.applyProductEvent(new Event<>(CREATE, 1, new Product(1, "name", 1, null)));
+        view.close();
+
+        //when
+        ProductAggregateView reopened = view(file, false);
+        boolean foundAfterRestart = reopened.get(1).isPresent();
+        reopened.close();
+        ProductAggregateView rebuilt = view(file, true);
+
+        //then
+        assertTrue(foundAfterRestart);
+        assertFalse(rebuilt.get(1).isPresent());
+        rebuilt.close();
+    }
+
+    @Test
+    void productIsNotAnsweredUntilItsEventIsSettled() {
+        //given
+        ProductAggregateView view = new ProductAggregateView(true, "", false, 60000, mapper, meterRegistry);
+
+        //when
+        view.applyProductEvent(new Event<>(CREATE, 1, new Product(1, "name", 1, null)));
+
+        //then
+        assertFalse(view.get(1).isPresent());
+        assertEquals(1, meterRegistry.get("product.composite.view.lookup").tag("result", "unsettled").counter().count());
+        view.close();
+    }
+
+    private ProductAggregateView view(String file, boolean rebuild) {
+        return new ProductAggregateView(true, file, rebuild, 0, mapper, meterRegistry);
+    }
+}
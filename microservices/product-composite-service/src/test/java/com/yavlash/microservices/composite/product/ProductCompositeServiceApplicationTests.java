@@ -1,5 +1,7 @@
 package com.yavlash.microservices.composite.product;
 
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.composite.product.ProductAggregatePart;
 import com.yavlash.api.core.product.Product;
 import com.yavlash.api.core.recommendation.Recommendation;
 import com.yavlash.api.core.review.Review;
@@ -16,17 +18,37 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"eureka.client.enabled=false"})
 class ProductCompositeServiceApplicationTests {
 	private static final int PRODUCT_ID_OK = 1;
 	private static final int PRODUCT_ID_NOT_FOUND = 2;
 	private static final int PRODUCT_ID_INVALID = 3;
+	private static final int PRODUCT_ID_CACHED = 4;
+	private static final int PRODUCT_ID_BATCH_1 = 5;
+	private static final int PRODUCT_ID_BATCH_2 = 6;
+	private static final int PRODUCT_ID_FULL_PAGE = 7;
+	private static final int PRODUCT_ID_SLOW_REVIEWS = 8;
+	private static final int PRODUCT_ID_JOINED_1 = 9;
+	private static final int PRODUCT_ID_JOINED_2 = 10;
+	private static final int PAGE_SIZE = 20;
 
 	@Autowired
 	private WebTestClient client;
@@ -38,12 +60,46 @@ class ProductCompositeServiceApplicationTests {
 	void setUp() {
 		when(compositeIntegration.getProduct(PRODUCT_ID_OK))
 				.thenReturn(Mono.just(new Product(PRODUCT_ID_OK, "name", 1, "mock-address")));
-		when(compositeIntegration.getRecommendations(PRODUCT_ID_OK))
+		when(compositeIntegration.getRecommendations(PRODUCT_ID_OK, 0, PAGE_SIZE, null))
 				.thenReturn(Flux.fromIterable(singletonList(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock address"))));
-		when(compositeIntegration.getReviews(PRODUCT_ID_OK))
+		when(compositeIntegration.getReviews(PRODUCT_ID_OK, 0, PAGE_SIZE, null))
 				.thenReturn(Flux.fromIterable(singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock address"))));
+		when(compositeIntegration.countRecommendations(PRODUCT_ID_OK)).thenReturn(Mono.just(25L));
+		when(compositeIntegration.streamRecommendations(PRODUCT_ID_OK, PAGE_SIZE))
+				.thenReturn(Flux.just(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock address")));
+		when(compositeIntegration.streamReviews(PRODUCT_ID_OK, PAGE_SIZE))
+				.thenReturn(Flux.just(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock address")));
+		when(compositeIntegration.countReviews(PRODUCT_ID_OK)).thenReturn(Mono.empty());
 		when(compositeIntegration.getProduct(PRODUCT_ID_NOT_FOUND)).thenThrow(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
 		when(compositeIntegration.getProduct(PRODUCT_ID_INVALID)).thenThrow(new InvalidInputException("INVALID: " + PRODUCT_ID_INVALID));
+		when(compositeIntegration.getProduct(PRODUCT_ID_CACHED))
+				.thenReturn(Mono.just(new Product(PRODUCT_ID_CACHED, "name", 1, "mock-address")));
+		when(compositeIntegration.getRecommendations(PRODUCT_ID_CACHED, 0, PAGE_SIZE, null)).thenReturn(Flux.empty());
+		when(compositeIntegration.getReviews(PRODUCT_ID_CACHED, 0, PAGE_SIZE, null)).thenReturn(Flux.empty());
+		when(compositeIntegration.countRecommendations(PRODUCT_ID_CACHED)).thenReturn(Mono.just(0L));
+		when(compositeIntegration.countReviews(PRODUCT_ID_CACHED)).thenReturn(Mono.just(0L));
+		when(compositeIntegration.deleteProduct(PRODUCT_ID_CACHED)).thenReturn(Mono.empty());
+		when(compositeIntegration.deleteRecommendations(PRODUCT_ID_CACHED)).thenReturn(Mono.empty());
+		when(compositeIntegration.deleteReviews(PRODUCT_ID_CACHED)).thenReturn(Mono.empty());
+		when(compositeIntegration.getProduct(PRODUCT_ID_FULL_PAGE))
+				.thenReturn(Mono.just(new Product(PRODUCT_ID_FULL_PAGE, "name", 1, "mock-address")));
+		when(compositeIntegration.getRecommendations(PRODUCT_ID_FULL_PAGE, 0, PAGE_SIZE, null))
+				.thenReturn(Flux.range(1, PAGE_SIZE).map(i -> new Recommendation(PRODUCT_ID_FULL_PAGE, i, "author", 1, "content", "mock address")));
+		when(compositeIntegration.getReviews(PRODUCT_ID_FULL_PAGE, 0, PAGE_SIZE, null)).thenReturn(Flux.empty());
+		when(compositeIntegration.countRecommendations(PRODUCT_ID_FULL_PAGE)).thenReturn(Mono.just(25L));
+		when(compositeIntegration.getProduct(PRODUCT_ID_SLOW_REVIEWS))
+				.thenReturn(Mono.just(new Product(PRODUCT_ID_SLOW_REVIEWS, "name", 1, "mock-address")));
+		when(compositeIntegration.streamRecommendations(PRODUCT_ID_SLOW_REVIEWS, PAGE_SIZE))
+				.thenReturn(Flux.just(new Recommendation(PRODUCT_ID_SLOW_REVIEWS, 1, "author", 1, "content", "mock address")));
+		when(compositeIntegration.streamReviews(PRODUCT_ID_SLOW_REVIEWS, PAGE_SIZE)).thenReturn(Flux.never());
+		when(compositeIntegration.getProducts(anyList())).thenReturn(Flux.just(
+				new Product(PRODUCT_ID_BATCH_1, "name", 1, "mock-address"),
+				new Product(PRODUCT_ID_BATCH_2, "name", 1, "mock-address")));
+		when(compositeIntegration.getRecommendations(anyList()))
+				.thenReturn(Flux.just(new Recommendation(PRODUCT_ID_BATCH_1, 1, "author", 1, "content", "mock address")));
+		when(compositeIntegration.getReviews(anyList())).thenReturn(Flux.just(
+				new Review(PRODUCT_ID_BATCH_2, 1, "author", "subject", "content", "mock address"),
+				new Review(PRODUCT_ID_BATCH_2, 2, "author", "subject", "content", "mock address")));
 	}
 
 	@Test
@@ -55,7 +111,160 @@ class ProductCompositeServiceApplicationTests {
 		getAndVerifyProduct(PRODUCT_ID_OK, OK)
 				.jsonPath("$.productId").isEqualTo(PRODUCT_ID_OK)
 				.jsonPath("$.recommendations.length()").isEqualTo(1)
-				.jsonPath("$.reviews.length()").isEqualTo(1);
+				.jsonPath("$.reviews.length()").isEqualTo(1)
+				.jsonPath("$.totalRecommendations").isEqualTo(1)
+				.jsonPath("$.totalReviews").isEqualTo(1);
+		verify(compositeIntegration, never()).countRecommendations(PRODUCT_ID_OK);
+		verify(compositeIntegration, never()).countReviews(PRODUCT_ID_OK);
+	}
+
+	@Test
+	void getProductByIdCountsOnlyFullPages() {
+		//given && when && then
+		getAndVerifyProduct(PRODUCT_ID_FULL_PAGE, OK)
+				.jsonPath("$.recommendations.length()").isEqualTo(PAGE_SIZE)
+				.jsonPath("$.reviews.length()").isEqualTo(0)
+				.jsonPath("$.totalRecommendations").isEqualTo(25)
+				.jsonPath("$.totalReviews").isEqualTo(0);
+		verify(compositeIntegration, times(1)).countRecommendations(PRODUCT_ID_FULL_PAGE);
+		verify(compositeIntegration, never()).countReviews(PRODUCT_ID_FULL_PAGE);
+	}
+
+	@Test
+	void getProductByIdFromCache() {
+		//given && when
+		getAndVerifyProduct(PRODUCT_ID_CACHED, OK).jsonPath("$.productId").isEqualTo(PRODUCT_ID_CACHED);
+		getAndVerifyProduct(PRODUCT_ID_CACHED, OK).jsonPath("$.productId").isEqualTo(PRODUCT_ID_CACHED);
+
+		//then
+		verify(compositeIntegration, times(1)).getProduct(PRODUCT_ID_CACHED);
+		client.delete().uri("/product-composite/" + PRODUCT_ID_CACHED).exchange().expectStatus().isEqualTo(ACCEPTED);
+		getAndVerifyProduct(PRODUCT_ID_CACHED, OK).jsonPath("$.productId").isEqualTo(PRODUCT_ID_CACHED);
+		verify(compositeIntegration, times(2)).getProduct(PRODUCT_ID_CACHED);
+	}
+
+	@Test
+	void streamProduct() {
+		//given && when
+		List<ProductAggregatePart> parts = client.get()
+				.uri("/product-composite/" + PRODUCT_ID_OK + "/stream")
+				.accept(APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentType(APPLICATION_NDJSON)
+				.returnResult(ProductAggregatePart.class)
+				.getResponseBody().collectList().block();
+
+		//then
+		assertEquals(3, parts.size());
+		assertEquals(ProductAggregatePart.Type.PRODUCT, parts.get(0).getType());
+		assertEquals("name", parts.get(0).getName());
+		assertEquals("mock-address", parts.get(0).getServiceAddresses().getPro());
+		assertEquals(1, parts.stream().filter(part -> part.getType() == ProductAggregatePart.Type.RECOMMENDATION).count());
+		assertEquals(1, parts.stream().filter(part -> part.getType() == ProductAggregatePart.Type.REVIEW).count());
+		parts.forEach(part -> assertEquals(PRODUCT_ID_OK, part.getProductId()));
+	}
+
+	@Test
+	void streamProductDoesNotWaitForSlowReviews() {
+		//given && when
+		List<ProductAggregatePart> parts = client.get()
+				.uri("/product-composite/" + PRODUCT_ID_SLOW_REVIEWS + "/stream")
+				.accept(APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(ProductAggregatePart.class)
+				.getResponseBody().take(2).collectList().block(Duration.ofSeconds(5));
+
+		//then
+		assertEquals(2, parts.size());
+		assertEquals(ProductAggregatePart.Type.PRODUCT, parts.get(0).getType());
+		assertEquals(ProductAggregatePart.Type.RECOMMENDATION, parts.get(1).getType());
+	}
+
+	@Test
+	void streamProductNotFound() {
+		//given && when && then
+		client.get()
+				.uri("/product-composite/" + PRODUCT_ID_NOT_FOUND + "/stream")
+				.accept(APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isEqualTo(NOT_FOUND);
+	}
+
+	@Test
+	void getProductsInBatch() {
+		//given
+		List<Integer> productIds = Arrays.asList(PRODUCT_ID_BATCH_1, PRODUCT_ID_BATCH_2, PRODUCT_ID_BATCH_1);
+
+		//when
+		List<ProductAggregate> aggregates = client.post()
+				.uri("/product-composite/batch")
+				.contentType(APPLICATION_JSON)
+				.bodyValue(productIds)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(ProductAggregate.class)
+				.getResponseBody().collectList().block();
+
+		//then
+		assertEquals(2, aggregates.size());
+		aggregates.forEach(aggregate -> {
+			int expectedRecommendations = aggregate.getProductId() == PRODUCT_ID_BATCH_1 ? 1 : 0;
+			int expectedReviews = aggregate.getProductId() == PRODUCT_ID_BATCH_2 ? 2 : 0;
+			assertEquals(expectedRecommendations, aggregate.getRecommendations().size());
+			assertEquals(expectedReviews, aggregate.getReviews().size());
+			assertEquals(expectedRecommendations, aggregate.getTotalRecommendations());
+			assertEquals(expectedReviews, aggregate.getTotalReviews());
+		});
+		verify(compositeIntegration, times(1)).getProducts(anyList());
+	}
+
+	@Test
+	void getProductsInBatchStreamsEachAggregateOnceItsPartsAreJoined() {
+		//given
+		List<Integer> productIds = Arrays.asList(PRODUCT_ID_JOINED_1, PRODUCT_ID_JOINED_2);
+		when(compositeIntegration.getProducts(productIds)).thenReturn(Flux.just(
+				new Product(PRODUCT_ID_JOINED_1, "name", 1, "mock-address"),
+				new Product(PRODUCT_ID_JOINED_2, "name", 1, "mock-address")));
+		when(compositeIntegration.getRecommendations(productIds))
+				.thenReturn(Flux.just(new Recommendation(PRODUCT_ID_JOINED_1, 1, "author", 1, "content", "mock address")));
+		when(compositeIntegration.getReviews(productIds)).thenReturn(Flux.concat(
+				Flux.just(new Review(PRODUCT_ID_JOINED_1, 1, "author", "subject", "content", "mock address"),
+						new Review(PRODUCT_ID_JOINED_2, 1, "author", "subject", "content", "mock address")),
+				Flux.never()));
+
+		//when
+		ProductAggregate first = client.post()
+				.uri("/product-composite/batch")
+				.contentType(APPLICATION_JSON)
+				.accept(APPLICATION_NDJSON)
+				.bodyValue(productIds)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(ProductAggregate.class)
+				.getResponseBody().blockFirst(Duration.ofSeconds(5));
+
+		//then
+		assertEquals(PRODUCT_ID_JOINED_1, first.getProductId());
+		assertEquals(1, first.getRecommendations().size());
+		assertEquals(1, first.getReviews().size());
+	}
+
+	@Test
+	void getProductsInBatchTooMany() {
+		//given
+		List<Integer> productIds = IntStream.rangeClosed(1, 201).boxed().collect(Collectors.toList());
+
+		//when && then
+		client.post()
+				.uri("/product-composite/batch")
+				.contentType(APPLICATION_JSON)
+				.bodyValue(productIds)
+				.exchange()
+				.expectStatus().isEqualTo(BAD_REQUEST)
+				.expectBody()
+				.jsonPath("$.message").isEqualTo("Too many product ids: 201, max is: 200");
 	}
 
 	@Test
@@ -74,6 +283,20 @@ class ProductCompositeServiceApplicationTests {
 				.jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
 	}
 
+	@Test
+	void healthShowsCircuitBreakers() {
+		//given && when && then
+		client.get()
+				.uri("/actuator/health/circuitBreakers")
+				.accept(APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.details.product.details.state").isEqualTo("CLOSED")
+				.jsonPath("$.details.recommendation.details.state").isEqualTo("CLOSED")
+				.jsonPath("$.details.review.details.state").isEqualTo("CLOSED");
+	}
+
 	private WebTestClient.BodyContentSpec getAndVerifyProduct(int productId, HttpStatus expectedStatus) {
 		return client.get()
 				.uri("/product-composite/" + productId)
@@ -0,0 +1,67 @@
+package com.yavlash.microservices.composite.product;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static reactor.core.publisher.Mono.just;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.yavlash.api.composite.product.ProductAggregate;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.event.Event;
+import com.yavlash.util.messaging.SmileMessageConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.MimeType;
+
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT, properties = {
+        "spring.main.allow-bean-definition-overriding=true",
+        "eureka.client.enabled=false"})
+@Import({TestChannelBinderConfiguration.class})
+@ActiveProfiles("smile_events")
+class SmileMessagingTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private OutputDestination target;
+
+    @Autowired
+    private MessageConverter smileMessageConverter;
+
+    @Test
+    void createCompositeProductPublishesSmile() {
+        //given
+        ProductAggregate composite = new ProductAggregate(1, "name", 1, null, null, null);
+
+        //when
+        client.post()
+                .uri("/product-composite")
+                .body(just(composite), ProductAggregate.class)
+                .exchange()
+                .expectStatus().isEqualTo(ACCEPTED);
+
+        //then
+        Message<byte[]> message = target.receive(0, "products");
+        assertEquals(SmileMessageConverter.APPLICATION_SMILE,
+                MimeType.valueOf(message.getHeaders().get(MessageHeaders.CONTENT_TYPE).toString()));
+        Event<Integer, Product> event = (Event<Integer, Product>) ((SmartMessageConverter) smileMessageConverter)
+                .fromMessage(message, Event.class, new TypeReference<Event<Integer, Product>>() {}.getType());
+        assertEquals(CREATE, event.getEventType());
+        assertEquals(1, event.getKey());
+        assertEquals("name", event.getData().getName());
+    }
+}
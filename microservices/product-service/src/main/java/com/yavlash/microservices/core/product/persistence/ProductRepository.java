@@ -1,8 +1,18 @@
 package com.yavlash.microservices.core.product.persistence;
 
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface ProductRepository extends ReactiveCrudRepository<ProductEntity, String> {
+import java.util.Collection;
+
+public interface ProductRepository extends ReactiveCrudRepository<ProductEntity, String>, ProductRepositoryCustom {
     Mono<ProductEntity> findByProductId(int productId);
+
+    Flux<ProductEntity> findByProductIdInOrderByProductIdAsc(Collection<Integer> productIds);
+
+    /**
+     * Deletes the products with the product id in one server-side deleteMany, returns the number deleted.
+     */
+    Mono<Long> deleteByProductId(int productId);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.yavlash.microservices.core.product.persistence;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+    /**
+     * Inserts the entities with a single unordered insertMany, so one failing entity does not stop the others.
+     *
+     * @param entities entities to insert
+     * @return error messages of the entities rejected as duplicates, keyed by their index in entities
+     */
+    Mono<Map<Integer, String>> insertAllUnordered(List<ProductEntity> entities);
+}
\ No newline at end of file
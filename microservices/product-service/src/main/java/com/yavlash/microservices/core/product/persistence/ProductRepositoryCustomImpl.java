@@ -0,0 +1,54 @@
+package com.yavlash.microservices.core.product.persistence;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private static final int DUPLICATE_KEY = 11000;
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    public ProductRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertAllUnordered(List<ProductEntity> entities) {
+        if (entities.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        List<Document> documents = entities.stream().map(this::toDocument).collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(ProductEntity.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Collections.<Integer, String>emptyMap())
+                .onErrorResume(MongoBulkWriteException.class, ex -> {
+                    Map<Integer, String> duplicates = new HashMap<>();
+                    for (BulkWriteError error : ex.getWriteErrors()) {
+                        if (error.getCode() != DUPLICATE_KEY) {
+                            return Mono.error(ex);
+                        }
+                        duplicates.put(error.getIndex(), error.getMessage());
+                    }
+                    return Mono.just(duplicates);
+                });
+    }
+
+    private Document toDocument(ProductEntity entity) {
+        // insertMany bypasses the repository, so initialize the version as save() does for new entities
+        entity.setVersion(0);
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        return document;
+    }
+}
\ No newline at end of file
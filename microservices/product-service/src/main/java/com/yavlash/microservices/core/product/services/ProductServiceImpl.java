@@ -12,8 +12,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
 import static java.util.logging.Level.FINE;
 
 @RestController
@@ -44,6 +50,30 @@ public class ProductServiceImpl implements ProductService {
                 .map(mapper::entityToApi);
     }
 
+    /**
+     * Creates the products with one unordered bulk insert. A product rejected as a duplicate of a stored
+     * product with the same content, e.g. inserted before by a redelivered event, counts as created.
+     *
+     * @param bodies products to create
+     * @return error messages of the products rejected as duplicates of other products, keyed by their index in bodies
+     */
+    public Mono<Map<Integer, String>> createProducts(List<Product> bodies) {
+        LOG.debug("Will create {} products with a bulk insert", bodies.size());
+        List<ProductEntity> entities = bodies.stream().map(mapper::apiToEntity).collect(Collectors.toList());
+        return repository.insertAllUnordered(entities)
+                .log(LOG.getName(), FINE)
+                .flatMap(duplicates -> Flux.fromIterable(duplicates.entrySet())
+                        .filterWhen(duplicate -> isConflicting(bodies.get(duplicate.getKey())))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private Mono<Boolean> isConflicting(Product body) {
+        return repository.findByProductId(body.getProductId())
+                .map(stored -> !(Objects.equals(stored.getName(), body.getName()) && stored.getWeight() == body.getWeight()))
+                .defaultIfEmpty(true)
+                .doOnNext(conflicting -> LOG.debug("createProducts: duplicate of productId: {}, conflicting: {}", body.getProductId(), conflicting));
+    }
+
     @Override
     public Mono<Product> getProduct(int productId) {
         if (productId < 1) {
@@ -57,13 +87,28 @@ public class ProductServiceImpl implements ProductService {
                 .map(this::setServiceAddress);
     }
 
+    @Override
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        LOG.info("Will get product info for {} ids", productIds.size());
+        return repository.findByProductIdInOrderByProductIdAsc(productIds)
+                .log(LOG.getName(), FINE)
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress);
+    }
+
     @Override
     public Mono<Void> deleteProduct(int productId) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
         LOG.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
-        return repository.findByProductId(productId).log(LOG.getName(), FINE).map(e -> repository.delete(e)).flatMap(e -> e);
+        return repository.deleteByProductId(productId)
+                .log(LOG.getName(), FINE)
+                .doOnNext(count -> LOG.debug("deleteProduct: deleted {} entities with productId: {}", count, productId))
+                .then();
     }
 
     private Product setServiceAddress(Product e) {
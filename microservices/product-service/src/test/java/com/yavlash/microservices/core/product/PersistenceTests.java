@@ -10,6 +10,8 @@ import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.dao.OptimisticLockingFailureException;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+
 @DataMongoTest(excludeAutoConfiguration = EmbeddedMongoAutoConfiguration.class)
 class PersistenceTests extends MongoDbTestBase {
     @Autowired
@@ -44,6 +46,21 @@ class PersistenceTests extends MongoDbTestBase {
         StepVerifier.create(repository.count()).expectNext(2L).verifyComplete();
     }
 
+    @Test
+    void insertAllUnorderedReportsDuplicates() {
+        //given
+        List<ProductEntity> newEntities = List.of(new ProductEntity(2, "n", 2), new ProductEntity(1, "n", 1), new ProductEntity(3, "n", 3));
+
+        //when && then
+        StepVerifier.create(repository.insertAllUnordered(newEntities))
+                .expectNextMatches(duplicates -> duplicates.size() == 1 && duplicates.containsKey(1))
+                .verifyComplete();
+        StepVerifier.create(repository.count()).expectNext(3L).verifyComplete();
+        StepVerifier.create(repository.findByProductId(3))
+                .expectNextMatches(foundEntity -> foundEntity.getVersion() == 0)
+                .verifyComplete();
+    }
+
     @Test
     void update() {
         //given && when && then
@@ -65,6 +82,14 @@ class PersistenceTests extends MongoDbTestBase {
         StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
     }
 
+    @Test
+    void deleteByProductId() {
+        //given && when && then
+        StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(1L).verifyComplete();
+        StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(0L).verifyComplete();
+        StepVerifier.create(repository.existsById(savedEntity.getId())).expectNext(false).verifyComplete();
+    }
+
     @Test
     void getByProductId() {
         //given && when && then
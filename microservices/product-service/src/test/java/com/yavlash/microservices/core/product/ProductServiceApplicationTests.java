@@ -7,6 +7,7 @@ import com.yavlash.api.core.product.Product;
 import com.yavlash.api.event.Event;
 import com.yavlash.api.exceptions.InvalidInputException;
 import com.yavlash.microservices.core.product.persistence.ProductRepository;
+import com.yavlash.microservices.core.product.services.ProductServiceImpl;
 
 import static com.yavlash.api.event.Event.Type.CREATE;
 import static com.yavlash.api.event.Event.Type.DELETE;
@@ -21,6 +22,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 @SpringBootTest(webEnvironment = RANDOM_PORT, properties = {"eureka.client.enabled=false"})
@@ -31,6 +35,9 @@ class ProductServiceApplicationTests extends MongoDbTestBase {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private ProductServiceImpl productService;
+
     @Autowired
     @Qualifier("messageProcessor")
     private Consumer<Event<Integer, Product>> messageProcessor;
@@ -71,6 +78,36 @@ class ProductServiceApplicationTests extends MongoDbTestBase {
         assertEquals("Duplicate key, Product Id: " + productId, thrown.getMessage());
     }
 
+    @Test
+    void bulkInsertAcceptsDuplicatesWithTheSameContent() {
+        //given
+        productService.createProducts(List.of(new Product(1, "Name 1", 1, null), new Product(2, "Name 2", 2, null))).block();
+
+        //when
+        Map<Integer, String> duplicates = productService.createProducts(List.of(
+                new Product(1, "Name 1", 1, null),
+                new Product(2, "Other name", 2, null),
+                new Product(3, "Name 3", 3, null))).block();
+
+        //then
+        assertEquals(Set.of(1), duplicates.keySet());
+        assertEquals(3, (long) repository.count().block());
+    }
+
+    @Test
+    void redeliveredEventIsDropped() {
+        //given
+        int productId = 1;
+        Event<Integer, Product> event = new Event(CREATE, productId, new Product(productId, "Name " + productId, productId, "SA"));
+
+        //when
+        messageProcessor.accept(event);
+        messageProcessor.accept(event);
+
+        //then
+        assertNotNull(repository.findByProductId(productId).block());
+    }
+
     @Test
     void deleteProduct() {
         //given
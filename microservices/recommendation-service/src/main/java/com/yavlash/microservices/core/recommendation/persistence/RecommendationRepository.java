@@ -2,7 +2,21 @@ package com.yavlash.microservices.core.recommendation.persistence;
 
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-public interface RecommendationRepository extends ReactiveCrudRepository<RecommendationEntity, String> {
+import java.util.Collection;
+
+public interface RecommendationRepository extends ReactiveCrudRepository<RecommendationEntity, String>, RecommendationRepositoryCustom {
     Flux<RecommendationEntity> findByProductId(int productId);
+
+    Mono<RecommendationEntity> findByProductIdAndRecommendationId(int productId, int recommendationId);
+
+    Flux<RecommendationEntity> findByProductIdInOrderByProductIdAscRecommendationIdAsc(Collection<Integer> productIds);
+
+    Mono<Long> countByProductId(int productId);
+
+    /**
+     * Deletes the recommendations of the product in one server-side deleteMany, returns the number deleted.
+     */
+    Mono<Long> deleteByProductId(int productId);
 }
\ No newline at end of file
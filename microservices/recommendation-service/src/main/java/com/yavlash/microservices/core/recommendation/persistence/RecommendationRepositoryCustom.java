@@ -0,0 +1,30 @@
+package com.yavlash.microservices.core.recommendation.persistence;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface RecommendationRepositoryCustom {
+    /**
+     * Inserts the entities with a single unordered insertMany, so one failing entity does not stop the others.
+     *
+     * @param entities entities to insert
+     * @return error messages of the entities rejected as duplicates, keyed by their index in entities
+     */
+    Mono<Map<Integer, String>> insertAllUnordered(List<RecommendationEntity> entities);
+
+    /**
+     * Finds a page of the recommendations of a product, ordered by recommendationId, using the
+     * unique productId/recommendationId index instead of skipping over the earlier pages.
+     *
+     * @param productId Id of the product
+     * @param afterId   only recommendations with a higher recommendationId are returned
+     * @param limit     max number of recommendations to return, 0 means no limit
+     * @param fields    entity fields to read in addition to productId and recommendationId, all fields if empty
+     * @return the recommendations of the page
+     */
+    Flux<RecommendationEntity> findPage(int productId, int afterId, int limit, Collection<String> fields);
+}
@@ -0,0 +1,71 @@
+package com.yavlash.microservices.core.recommendation.persistence;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class RecommendationRepositoryCustomImpl implements RecommendationRepositoryCustom {
+    private static final int DUPLICATE_KEY = 11000;
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    public RecommendationRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertAllUnordered(List<RecommendationEntity> entities) {
+        if (entities.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        List<Document> documents = entities.stream().map(this::toDocument).collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(RecommendationEntity.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Collections.<Integer, String>emptyMap())
+                .onErrorResume(MongoBulkWriteException.class, ex -> {
+                    Map<Integer, String> duplicates = new HashMap<>();
+                    for (BulkWriteError error : ex.getWriteErrors()) {
+                        if (error.getCode() != DUPLICATE_KEY) {
+                            return Mono.error(ex);
+                        }
+                        duplicates.put(error.getIndex(), error.getMessage());
+                    }
+                    return Mono.just(duplicates);
+                });
+    }
+
+    @Override
+    public Flux<RecommendationEntity> findPage(int productId, int afterId, int limit, Collection<String> fields) {
+        Query query = new Query(where("productId").is(productId).and("recommendationId").gt(afterId))
+                .with(Sort.by("recommendationId"))
+                .limit(limit);
+        if (!fields.isEmpty()) {
+            query.fields().include("productId", "recommendationId").include(fields.toArray(new String[0]));
+        }
+        return mongoTemplate.find(query, RecommendationEntity.class);
+    }
+
+    private Document toDocument(RecommendationEntity entity) {
+        // insertMany bypasses the repository, so initialize the version as save() does for new entities
+        entity.setVersion(0);
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        return document;
+    }
+}
\ No newline at end of file
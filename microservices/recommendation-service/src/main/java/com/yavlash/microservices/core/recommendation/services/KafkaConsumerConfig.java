@@ -0,0 +1,48 @@
+package com.yavlash.microservices.core.recommendation.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.binder.kafka.config.ClientFactoryCustomizer;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+
+@Profile("kafka")
+@Configuration
+public class KafkaConsumerConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaConsumerConfig.class);
+
+    /**
+     * Lets the reactive message processor acknowledge the messages out of order, as its lanes complete them.
+     * The container only commits an offset once all the earlier offsets of the partition are acknowledged.
+     */
+    @Bean
+    public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> asyncAcksCustomizer() {
+        return (container, destination, group) -> {
+            if (container.getContainerProperties().getAckMode() == AckMode.MANUAL) {
+                LOG.info("Enables out of order acks of the consumer of {} in group {}", destination, group);
+                container.getContainerProperties().setAsyncAcks(true);
+            }
+        };
+    }
+
+    /**
+     * Adds the metrics of the binder's Kafka consumers, among them the lag of each assigned partition as
+     * kafka.consumer.fetch.manager.records.lag, tagged with the topic and partition.
+     */
+    @Bean
+    public ClientFactoryCustomizer kafkaConsumerMetrics(MeterRegistry meterRegistry) {
+        return new ClientFactoryCustomizer() {
+            @Override
+            public void configure(ConsumerFactory<?, ?> consumerFactory) {
+                consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+            }
+        };
+    }
+}
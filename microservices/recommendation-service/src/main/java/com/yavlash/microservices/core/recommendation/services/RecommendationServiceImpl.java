@@ -14,11 +14,22 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
 import static java.util.logging.Level.FINE;
 
 @RestController
 public class RecommendationServiceImpl implements RecommendationService {
     private static final Logger LOG = LoggerFactory.getLogger(RecommendationServiceImpl.class);
+    private static final Map<String, String> FIELDS = Map.of(
+            "productId", "productId",
+            "recommendationId", "recommendationId",
+            "author", "author",
+            "rate", "rating",
+            "content", "content");
     private final RecommendationRepository repository;
     private final RecommendationMapper mapper;
     private final ServiceUtil serviceUtil;
@@ -44,13 +55,68 @@ public class RecommendationServiceImpl implements RecommendationService {
                 .map(mapper::entityToApi);
     }
 
+    /**
+     * Creates the recommendations with one unordered bulk insert. A recommendation rejected as a duplicate of a
+     * stored recommendation with the same content, e.g. inserted before by a redelivered event, counts as created.
+     *
+     * @param bodies recommendations to create
+     * @return error messages of the recommendations rejected as duplicates of other recommendations, keyed by their
+     * index in bodies
+     */
+    public Mono<Map<Integer, String>> createRecommendations(List<Recommendation> bodies) {
+        LOG.debug("Will create {} recommendations with a bulk insert", bodies.size());
+        List<RecommendationEntity> entities = bodies.stream().map(mapper::apiToEntity).collect(Collectors.toList());
+        return repository.insertAllUnordered(entities)
+                .log(LOG.getName(), FINE)
+                .flatMap(duplicates -> Flux.fromIterable(duplicates.entrySet())
+                        .filterWhen(duplicate -> isConflicting(bodies.get(duplicate.getKey())))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private Mono<Boolean> isConflicting(Recommendation body) {
+        return repository.findByProductIdAndRecommendationId(body.getProductId(), body.getRecommendationId())
+                .map(stored -> !(Objects.equals(stored.getAuthor(), body.getAuthor())
+                        && stored.getRating() == body.getRate()
+                        && Objects.equals(stored.getContent(), body.getContent())))
+                .defaultIfEmpty(true)
+                .doOnNext(conflicting -> LOG.debug("createRecommendations: duplicate of productId: {}, recommendationId: {}, conflicting: {}",
+                        body.getProductId(), body.getRecommendationId(), conflicting));
+    }
+
     @Override
-    public Flux<Recommendation> getRecommendations(int productId) {
+    public Flux<Recommendation> getRecommendations(int productId, int afterId, int limit, List<String> fields) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
-        LOG.info("Will get recommendations for product with id={}", productId);
-        return repository.findByProductId(productId)
+        if (afterId < 0) {
+            throw new InvalidInputException("Invalid afterId: " + afterId);
+        }
+        if (limit < 0) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        List<String> entityFields = toEntityFields(fields);
+        LOG.info("Will get recommendations for product with id={}, afterId={}, limit={}", productId, afterId, limit);
+        return repository.findPage(productId, afterId, limit, entityFields)
+                .log(LOG.getName(), FINE)
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress);
+    }
+
+    @Override
+    public Mono<Long> countRecommendations(int productId) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        return repository.countByProductId(productId).log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendations(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        LOG.info("Will get recommendations for {} products", productIds.size());
+        return repository.findByProductIdInOrderByProductIdAscRecommendationIdAsc(productIds)
                 .log(LOG.getName(), FINE)
                 .map(mapper::entityToApi)
                 .map(this::setServiceAddress);
@@ -62,7 +128,25 @@ public class RecommendationServiceImpl implements RecommendationService {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
         LOG.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
-        return repository.deleteAll(repository.findByProductId(productId));
+        return repository.deleteByProductId(productId)
+                .log(LOG.getName(), FINE)
+                .doOnNext(count -> LOG.debug("deleteRecommendations: deleted {} recommendations for the product with productId: {}", count, productId))
+                .then();
+    }
+
+    private List<String> toEntityFields(List<String> fields) {
+        if (fields == null) {
+            return List.of();
+        }
+        return fields.stream()
+                .map(field -> {
+                    String entityField = FIELDS.get(field);
+                    if (entityField == null) {
+                        throw new InvalidInputException("Invalid field: " + field);
+                    }
+                    return entityField;
+                })
+                .collect(Collectors.toList());
     }
 
     private Recommendation setServiceAddress(Recommendation e) {
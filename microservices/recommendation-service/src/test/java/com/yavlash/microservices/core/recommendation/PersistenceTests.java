@@ -10,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -45,6 +46,23 @@ class PersistenceTests extends MongoDbTestBase {
         assertEquals(2, (long) repository.count().block());
     }
 
+    @Test
+    void insertAllUnorderedReportsDuplicates() {
+        //given
+        List<RecommendationEntity> newEntities = List.of(
+                new RecommendationEntity(1, 2, "a", 3, "c"),
+                new RecommendationEntity(1, 3, "a", 3, "c"),
+                new RecommendationEntity(1, 4, "a", 3, "c"));
+
+        //when
+        Map<Integer, String> duplicates = repository.insertAllUnordered(newEntities).block();
+
+        //then
+        assertEquals(1, duplicates.size());
+        assertTrue(duplicates.containsKey(0));
+        assertEquals(3, (long) repository.count().block());
+    }
+
     @Test
     void update() {
         //given && when
@@ -70,6 +88,22 @@ class PersistenceTests extends MongoDbTestBase {
         assertFalse(repository.existsById(savedEntity.getId()).block());
     }
 
+    @Test
+    void deleteByProductId() {
+        //given
+        repository.saveAll(List.of(
+                new RecommendationEntity(1, 3, "a", 3, "c"),
+                new RecommendationEntity(2, 1, "a", 3, "c"))).blockLast();
+
+        //when
+        Long deleted = repository.deleteByProductId(1).block();
+
+        //then
+        assertEquals(2, (long) deleted);
+        assertEquals(0, (long) repository.countByProductId(1).block());
+        assertEquals(1, (long) repository.countByProductId(2).block());
+    }
+
     @Test
     void getByProductId() {
         // given && when
@@ -80,6 +114,26 @@ class PersistenceTests extends MongoDbTestBase {
         assertEqualsRecommendation(savedEntity, entityList.get(0));
     }
 
+    @Test
+    void findPageAfterId() {
+        //given
+        repository.saveAll(List.of(
+                new RecommendationEntity(1, 3, "a", 3, "c"),
+                new RecommendationEntity(1, 4, "a", 3, "c"),
+                new RecommendationEntity(1, 5, "a", 3, "c"))).blockLast();
+
+        //when
+        List<RecommendationEntity> page = repository.findPage(1, 2, 2, List.of("author")).collectList().block();
+
+        //then
+        assertThat(page, hasSize(2));
+        assertEquals(3, page.get(0).getRecommendationId());
+        assertEquals(4, page.get(1).getRecommendationId());
+        assertEquals("a", page.get(0).getAuthor());
+        assertNull(page.get(0).getContent());
+        assertEquals(4, (long) repository.countByProductId(1).block());
+    }
+
     @Test
     void optimisticLockError() {
         // given && when
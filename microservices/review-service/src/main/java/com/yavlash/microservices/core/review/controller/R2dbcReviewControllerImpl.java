@@ -0,0 +1,136 @@
+package com.yavlash.microservices.core.review.controller;
+
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.core.review.ReviewController;
+import com.yavlash.api.exceptions.InvalidInputException;
+import com.yavlash.microservices.core.review.persistence.DuplicateKeys;
+import com.yavlash.microservices.core.review.persistence.ReviewEntity;
+import com.yavlash.microservices.core.review.persistence.ReviewIdAllocator;
+import com.yavlash.microservices.core.review.persistence.ReviewReactiveRepository;
+import com.yavlash.microservices.core.review.services.ReviewMapper;
+import com.yavlash.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.logging.Level.FINE;
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Non-blocking implementation of the review API on R2DBC, enabled by the r2dbc profile.
+ * Replaces {@link ReviewControllerImpl}, which runs the JPA calls on the jdbcScheduler.
+ */
+@RestController
+@Profile("r2dbc")
+public class R2dbcReviewControllerImpl implements ReviewController {
+    private static final Logger LOG = LoggerFactory.getLogger(R2dbcReviewControllerImpl.class);
+    private final ReviewReactiveRepository repository;
+    private final R2dbcEntityTemplate template;
+    private final ReviewIdAllocator idAllocator;
+    private final ReviewMapper mapper;
+    private final ServiceUtil serviceUtil;
+
+    @Autowired
+    public R2dbcReviewControllerImpl(ReviewReactiveRepository repository, R2dbcEntityTemplate template,
+            ReviewIdAllocator idAllocator, ReviewMapper mapper, ServiceUtil serviceUtil) {
+        this.repository = repository;
+        this.template = template;
+        this.idAllocator = idAllocator;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+    }
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+        if (body.getProductId() < 1) {
+            throw new InvalidInputException("Invalid productId: " + body.getProductId());
+        }
+        ReviewEntity entity = mapper.apiToEntity(body);
+        return idAllocator.nextId()
+                .flatMap(id -> {
+                    entity.setId(id);
+                    entity.setVersion(0);
+                    return template.insert(entity);
+                })
+                .log(LOG.getName(), FINE)
+                .onErrorMap(
+                        DataIntegrityViolationException.class,
+                        ex -> new InvalidInputException(DuplicateKeys.isDuplicateKey(ex)
+                                ? "Duplicate key, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId()
+                                : "Invalid review, Product Id: " + body.getProductId() + ", Review Id:" + body.getReviewId()
+                                        + ", " + ex.getMostSpecificCause().getMessage()))
+                .map(mapper::entityToApi);
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId, int afterId, int limit, List<String> fields) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        ReviewPages.validate(afterId, limit);
+        List<String> entityFields = ReviewPages.toEntityFields(fields);
+        LOG.info("Will get reviews for product with id={}, afterId={}, limit={}", productId, afterId, limit);
+        Query query = query(where("productId").is(productId).and("reviewId").greaterThan(afterId))
+                .sort(Sort.by("reviewId"));
+        if (limit > 0) {
+            query = query.limit(limit);
+        }
+        if (!entityFields.isEmpty()) {
+            List<String> columns = new ArrayList<>(List.of("productId", "reviewId"));
+            entityFields.stream().filter(field -> !columns.contains(field)).forEach(columns::add);
+            query = query.columns(columns);
+        }
+        return template.select(query, ReviewEntity.class)
+                .log(LOG.getName(), FINE)
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress);
+    }
+
+    @Override
+    public Mono<Long> countReviews(int productId) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        return repository.countByProductId(productId).log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<Review> getReviews(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        LOG.info("Will get reviews for {} products", productIds.size());
+        return repository.findByProductIdInOrderByProductIdAscReviewIdAsc(productIds)
+                .log(LOG.getName(), FINE)
+                .map(mapper::entityToApi)
+                .map(this::setServiceAddress);
+    }
+
+    @Override
+    public Mono<Void> deleteReviews(int productId) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        LOG.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
+        return repository.deleteByProductId(productId)
+                .doOnNext(deleted -> LOG.debug("deleteReviews: deleted {} reviews for the product with productId: {}", deleted, productId))
+                .then();
+    }
+
+    private Review setServiceAddress(Review review) {
+        review.setServiceAddress(serviceUtil.getServiceAddress());
+        return review;
+    }
+}
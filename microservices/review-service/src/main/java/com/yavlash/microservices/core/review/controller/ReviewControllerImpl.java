@@ -8,14 +8,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.util.List;
+
 import static java.util.logging.Level.FINE;
 
 @RestController
+@Profile("!r2dbc")
 public class ReviewControllerImpl implements ReviewController {
     private static final Logger LOG = LoggerFactory.getLogger(ReviewControllerImpl.class);
     private final ReviewService service;
@@ -37,12 +41,36 @@ public class ReviewControllerImpl implements ReviewController {
     }
 
     @Override
-    public Flux<Review> getReviews(int productId) {
+    public Flux<Review> getReviews(int productId, int afterId, int limit, List<String> fields) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        ReviewPages.validate(afterId, limit);
+        List<String> entityFields = ReviewPages.toEntityFields(fields);
+        LOG.info("Will get reviews for product with id={}, afterId={}, limit={}", productId, afterId, limit);
+        return Mono.fromCallable(() -> service.findReviewsByProductId(productId, afterId, limit, entityFields))
+                .flatMapMany(Flux::fromIterable)
+                .log(LOG.getName(), FINE)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    @Override
+    public Mono<Long> countReviews(int productId) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
-        LOG.info("Will get reviews for product with id={}", productId);
-        return Mono.fromCallable(() -> service.findReviewsByProductId(productId))
+        return Mono.fromCallable(() -> service.countReviewsByProductId(productId))
+                .log(LOG.getName(), FINE)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    @Override
+    public Flux<Review> getReviews(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        LOG.info("Will get reviews for {} products", productIds.size());
+        return Mono.fromCallable(() -> service.findReviewsByProductIds(productIds))
                 .flatMapMany(Flux::fromIterable)
                 .log(LOG.getName(), FINE)
                 .subscribeOn(jdbcScheduler);
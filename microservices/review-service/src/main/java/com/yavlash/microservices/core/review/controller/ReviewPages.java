@@ -0,0 +1,38 @@
+package com.yavlash.microservices.core.review.controller;
+
+import com.yavlash.api.exceptions.InvalidInputException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validation of the paging and projection parameters shared by the JPA and R2DBC review controllers.
+ */
+final class ReviewPages {
+    private static final Set<String> FIELDS = Set.of("productId", "reviewId", "author", "subject", "content");
+
+    private ReviewPages() {
+    }
+
+    static void validate(int afterId, int limit) {
+        if (afterId < 0) {
+            throw new InvalidInputException("Invalid afterId: " + afterId);
+        }
+        if (limit < 0) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+    }
+
+    /**
+     * The review fields of the API and the entity have the same names, so this only rejects unknown fields.
+     */
+    static List<String> toEntityFields(List<String> fields) {
+        if (fields == null) {
+            return List.of();
+        }
+        fields.stream().filter(field -> !FIELDS.contains(field)).findFirst().ifPresent(field -> {
+            throw new InvalidInputException("Invalid field: " + field);
+        });
+        return fields;
+    }
+}
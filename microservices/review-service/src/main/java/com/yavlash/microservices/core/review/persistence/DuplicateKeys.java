@@ -0,0 +1,38 @@
+package com.yavlash.microservices.core.review.persistence;
+
+import io.r2dbc.spi.R2dbcException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+/**
+ * Tells duplicate keys apart from the other data integrity violations, e.g. a NOT NULL column or a too long
+ * value, which Spring all reports as DataIntegrityViolationException.
+ * <p>
+ * A violation is a duplicate key if it is a DuplicateKeyException or caused by a JDBC or R2DBC exception with
+ * the MySQL error code 1062 (ER_DUP_ENTRY) or the SQL state 23505 (unique violation) of other databases.
+ */
+public final class DuplicateKeys {
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private DuplicateKeys() {
+    }
+
+    public static boolean isDuplicateKey(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof DuplicateKeyException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException
+                    && (sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY || UNIQUE_VIOLATION.equals(sqlException.getSQLState()))) {
+                return true;
+            }
+            if (cause instanceof R2dbcException r2dbcException
+                    && (r2dbcException.getErrorCode() == MYSQL_DUPLICATE_ENTRY || UNIQUE_VIOLATION.equals(r2dbcException.getSqlState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package com.yavlash.microservices.core.review.persistence;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+@Configuration
+@Profile("r2dbc")
+@EnableR2dbcRepositories(
+        basePackageClasses = ReviewReactiveRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReviewReactiveRepository.class))
+public class R2dbcPersistenceConfig {
+}
@@ -1,5 +1,8 @@
 package com.yavlash.microservices.core.review.persistence;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -8,10 +11,21 @@ import javax.persistence.Table;
 import javax.persistence.Version;
 
 @Entity
+@org.springframework.data.relational.core.mapping.Table("reviews")
 @Table(name = "reviews", indexes = { @Index(name = "reviews_unique_idx", unique = true, columnList = "productId,reviewId") })
 public class ReviewEntity {
+    // Ids are reserved 50 at a time from hibernate_sequence, so batched inserts need no extra round trip per row
     @Id
-    @GeneratedValue
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(generator = "review_id_generator")
+    @GenericGenerator(
+            name = "review_id_generator",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private int id;
 
     @Version
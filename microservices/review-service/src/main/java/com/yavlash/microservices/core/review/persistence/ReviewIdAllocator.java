@@ -0,0 +1,63 @@
+package com.yavlash.microservices.core.review.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Allocates review ids for R2DBC inserts from the hibernate_sequence table used by the JPA backend.
+ * <p>
+ * Blocks of ids are reserved the same way as the pooled-lo optimizer on {@link ReviewEntity} does,
+ * so both backends can write to the same table without id collisions.
+ */
+@Component
+@Profile("r2dbc")
+public class ReviewIdAllocator {
+    private static final Logger LOG = LoggerFactory.getLogger(ReviewIdAllocator.class);
+    private static final int ALLOCATION_SIZE = 50;
+    private static final String RESERVE_BLOCK_SQL = "UPDATE hibernate_sequence SET next_val = LAST_INSERT_ID(next_val + " + ALLOCATION_SIZE + ")";
+    private static final String LAST_INSERT_ID_SQL = "SELECT LAST_INSERT_ID()";
+    private final DatabaseClient databaseClient;
+    private long next;
+    private long limit;
+
+    @Autowired
+    public ReviewIdAllocator(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Integer> nextId() {
+        return Mono.defer(() -> {
+            synchronized (this) {
+                if (next < limit) {
+                    return Mono.just((int) next++);
+                }
+            }
+            return reserveBlock().flatMap(lo -> {
+                synchronized (this) {
+                    // Another caller may have refilled meanwhile, the ids of this block are then left unused
+                    if (next >= limit) {
+                        next = lo;
+                        limit = lo + ALLOCATION_SIZE;
+                    }
+                }
+                return nextId();
+            });
+        });
+    }
+
+    private Mono<Long> reserveBlock() {
+        // LAST_INSERT_ID() is per connection, so both statements must run on the same one
+        return databaseClient.inConnection(connection ->
+                        Mono.from(connection.createStatement(RESERVE_BLOCK_SQL).execute())
+                                .flatMap(result -> Mono.from(result.getRowsUpdated()))
+                                .then(Mono.from(connection.createStatement(LAST_INSERT_ID_SQL).execute()))
+                                .flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Number.class).longValue()))))
+                .map(hi -> hi - ALLOCATION_SIZE)
+                .doOnNext(lo -> LOG.debug("Reserved review ids {} to {}", lo, lo + ALLOCATION_SIZE - 1));
+    }
+}
@@ -0,0 +1,24 @@
+package com.yavlash.microservices.core.review.persistence;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * R2DBC counterpart of {@link ReviewRepository}, used when the r2dbc profile is active.
+ */
+public interface ReviewReactiveRepository extends R2dbcRepository<ReviewEntity, Integer> {
+    Flux<ReviewEntity> findByProductId(int productId);
+
+    Flux<ReviewEntity> findByProductIdInOrderByProductIdAscReviewIdAsc(Collection<Integer> productIds);
+
+    Mono<Long> countByProductId(int productId);
+
+    @Modifying
+    @Query("DELETE FROM reviews WHERE product_id = :productId")
+    Mono<Integer> deleteByProductId(int productId);
+}
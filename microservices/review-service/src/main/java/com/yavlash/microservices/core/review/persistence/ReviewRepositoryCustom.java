@@ -0,0 +1,18 @@
+package com.yavlash.microservices.core.review.persistence;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReviewRepositoryCustom {
+    /**
+     * Finds a page of the reviews of a product, ordered by reviewId, using the unique productId/reviewId index
+     * instead of skipping over the earlier pages.
+     *
+     * @param productId Id of the product
+     * @param afterId   only reviews with a higher reviewId are returned
+     * @param limit     max number of reviews to return, 0 means no limit
+     * @param fields    entity fields to read in addition to productId and reviewId, all fields if empty
+     * @return the reviews of the page, detached if only some fields are read
+     */
+    List<ReviewEntity> findPage(int productId, int afterId, int limit, Collection<String> fields);
+}
@@ -0,0 +1,67 @@
+package com.yavlash.microservices.core.review.persistence;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReviewEntity> findPage(int productId, int afterId, int limit, Collection<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (fields.isEmpty()) {
+            CriteriaQuery<ReviewEntity> query = cb.createQuery(ReviewEntity.class);
+            Root<ReviewEntity> root = query.from(ReviewEntity.class);
+            query.select(root).where(pageOf(cb, root, productId, afterId)).orderBy(cb.asc(root.get("reviewId")));
+            return withLimit(entityManager.createQuery(query), limit).getResultList();
+        }
+        List<String> columns = new ArrayList<>(List.of("productId", "reviewId"));
+        fields.stream().filter(field -> !columns.contains(field)).forEach(columns::add);
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<ReviewEntity> root = query.from(ReviewEntity.class);
+        List<Selection<?>> selections = columns.stream().map(column -> root.get(column).alias(column)).collect(Collectors.toList());
+        query.multiselect(selections).where(pageOf(cb, root, productId, afterId)).orderBy(cb.asc(root.get("reviewId")));
+        return withLimit(entityManager.createQuery(query), limit).getResultList().stream()
+                .map(tuple -> toEntity(tuple, columns))
+                .collect(Collectors.toList());
+    }
+
+    private Predicate pageOf(CriteriaBuilder cb, Root<ReviewEntity> root, int productId, int afterId) {
+        return cb.and(cb.equal(root.get("productId"), productId), cb.greaterThan(root.get("reviewId"), afterId));
+    }
+
+    private <T> TypedQuery<T> withLimit(TypedQuery<T> query, int limit) {
+        return limit > 0 ? query.setMaxResults(limit) : query;
+    }
+
+    private ReviewEntity toEntity(Tuple tuple, List<String> columns) {
+        ReviewEntity entity = new ReviewEntity();
+        for (String column : columns) {
+            Object value = tuple.get(column);
+            switch (column) {
+                case "productId" -> entity.setProductId((Integer) value);
+                case "reviewId" -> entity.setReviewId((Integer) value);
+                case "author" -> entity.setAuthor((String) value);
+                case "subject" -> entity.setSubject((String) value);
+                case "content" -> entity.setContent((String) value);
+                default -> throw new IllegalArgumentException("Unknown review field: " + column);
+            }
+        }
+        return entity;
+    }
+}
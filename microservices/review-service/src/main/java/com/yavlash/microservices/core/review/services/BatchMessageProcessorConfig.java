@@ -0,0 +1,159 @@
+package com.yavlash.microservices.core.review.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import com.yavlash.util.messaging.EventConsumerMetrics;
+import com.yavlash.util.messaging.RetryBackOff;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static com.yavlash.api.event.Event.Type.DELETE;
+
+/**
+ * Batch consumer, enabled by the batch_consumer profile.
+ * <p>
+ * Runs of consecutive CREATE events are written in one transaction with batched JDBC inserts, other
+ * events are processed one by one in between, so the order of the batch is kept. Not available with the r2dbc profile.
+ * <p>
+ * A failure only affects the events it belongs to, the batch itself never fails. Reviews rejected as invalid,
+ * or as duplicates of stored reviews with other content, are sent to the DLQ one by one. A duplicate of a stored
+ * review with the same content, e.g. inserted before a redelivery of the batch, counts as created. A failing
+ * DELETE or batched insert is retried with the backoff of the binding and then sends its events to the DLQ.
+ * <p>
+ * The outcome of each event is recorded by the {@link EventConsumerMetrics} of the binding, the events of the
+ * batched inserts each get an equal share of the time of its attempts.
+ */
+@Configuration
+@Profile("!r2dbc")
+public class BatchMessageProcessorConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(BatchMessageProcessorConfig.class);
+    private static final String DLQ_BINDING = "messageProcessorDlq-out-0";
+    private final ReviewService reviewService;
+    private final StreamBridge streamBridge;
+    private final RetryBackOff retryBackOff;
+    private final EventConsumerMetrics metrics;
+
+    @Autowired
+    public BatchMessageProcessorConfig(
+            ReviewService reviewService,
+            StreamBridge streamBridge,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.maxAttempts:3}") int maxAttempts,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffInitialInterval:1000}") long backOffInitialInterval,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffMaxInterval:10000}") long backOffMaxInterval,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffMultiplier:2.0}") double backOffMultiplier,
+            MeterRegistry meterRegistry) {
+        this.reviewService = reviewService;
+        this.streamBridge = streamBridge;
+        this.retryBackOff = new RetryBackOff(maxAttempts, backOffInitialInterval, backOffMaxInterval, backOffMultiplier);
+        this.metrics = new EventConsumerMetrics("messageProcessor", maxAttempts, meterRegistry);
+    }
+
+    @Bean
+    public Consumer<List<Event<Integer, Review>>> batchMessageProcessor() {
+        return events -> {
+            LOG.info("Process batch of {} messages...", events.size());
+            List<Event<Integer, Review>> creates = new ArrayList<>();
+            for (Event<Integer, Review> event : events) {
+                if (event.getEventType() == CREATE) {
+                    creates.add(event);
+                    continue;
+                }
+                createAll(creates);
+                creates.clear();
+                if (event.getEventType() == DELETE) {
+                    delete(event);
+                } else {
+                    metrics.deadLettered(event, 0);
+                    sendToDlq(event, "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event");
+                }
+            }
+            createAll(creates);
+            LOG.info("Batch processing done!");
+        };
+    }
+
+    private void createAll(List<Event<Integer, Review>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Event<Integer, Review>> valid = new ArrayList<>();
+        for (Event<Integer, Review> event : events) {
+            Review body = event.getData();
+            if (body == null || body.getProductId() < 1) {
+                metrics.deadLettered(event, 0);
+                sendToDlq(event, "Invalid productId: " + (body == null ? null : body.getProductId()));
+            } else {
+                valid.add(event);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        LOG.info("Create {} reviews with batched inserts", valid.size());
+        List<Review> bodies = valid.stream().map(Event::getData).toList();
+        Map<Integer, String> rejected;
+        try {
+            rejected = Mono.defer(() -> {
+                long start = System.nanoTime();
+                return Mono.fromCallable(() -> reviewService.createReviews(bodies))
+                        .doOnSuccess(result -> recordCreated(valid, result, System.nanoTime() - start))
+                        .doOnError(error -> recordFailed(valid, System.nanoTime() - start));
+            }).retryWhen(retryBackOff.toRetry()).block();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to insert {} reviews after {} attempts: {}", valid.size(), retryBackOff.getMaxAttempts(), e.toString());
+            valid.forEach(event -> sendToDlq(event, String.valueOf(e.getMessage())));
+            return;
+        }
+        rejected.forEach((index, error) -> sendToDlq(valid.get(index), error));
+    }
+
+    private void recordCreated(List<Event<Integer, Review>> events, Map<Integer, String> rejected, long elapsedNanos) {
+        long share = elapsedNanos / events.size();
+        for (int i = 0; i < events.size(); i++) {
+            if (rejected.containsKey(i)) {
+                metrics.deadLettered(events.get(i), share);
+            } else {
+                metrics.succeeded(events.get(i), share);
+            }
+        }
+    }
+
+    private void recordFailed(List<Event<Integer, Review>> events, long elapsedNanos) {
+        long share = elapsedNanos / events.size();
+        events.forEach(event -> metrics.failed(event, share));
+    }
+
+    private void delete(Event<Integer, Review> event) {
+        LOG.info("Delete reviews with ProductID: {}", event.getKey());
+        try {
+            metrics.record(event, () -> Mono.fromRunnable(() -> reviewService.deleteReviewsByProductId(event.getKey())))
+                    .retryWhen(retryBackOff.toRetry()).block();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to delete reviews with ProductID: {} after {} attempts: {}",
+                    event.getKey(), retryBackOff.getMaxAttempts(), e.toString());
+            sendToDlq(event, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void sendToDlq(Event<Integer, Review> event, String error) {
+        LOG.warn("Sends {} event with key {} to the DLQ: {}", event.getEventType(), event.getKey(), error);
+        streamBridge.send(DLQ_BINDING, MessageBuilder.withPayload(event)
+                .setHeader("x-exception-message", error)
+                .build());
+    }
+}
@@ -1,49 +1,122 @@
 package com.yavlash.microservices.core.review.services;
 
+import java.time.Duration;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.yavlash.api.core.review.Review;
 import com.yavlash.api.core.review.ReviewController;
 import com.yavlash.api.event.Event;
 import com.yavlash.api.exceptions.EventProcessingException;
+import com.yavlash.util.messaging.DeadLetterMessages;
+import com.yavlash.util.messaging.EventConsumerMetrics;
+import com.yavlash.util.messaging.EventDeduplicator;
+import com.yavlash.util.messaging.KeyOrderedEventProcessor;
+import com.yavlash.util.messaging.RetryBackOff;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Configuration
 public class MessageProcessorConfig {
     private static final Logger LOG = LoggerFactory.getLogger(MessageProcessorConfig.class);
+    private static final String DLQ_BINDING = "messageProcessorDlq-out-0";
     private final ReviewController reviewService;
+    private final StreamBridge streamBridge;
+    private final int concurrency;
+    private final RetryBackOff retryBackOff;
+    private final EventDeduplicator deduplicator;
+    private final EventConsumerMetrics metrics;
 
     @Autowired
-    public MessageProcessorConfig(ReviewController reviewService) {
+    public MessageProcessorConfig(
+            ReviewController reviewService,
+            StreamBridge streamBridge,
+            @Value("${app.messageProcessor.concurrency:16}") int concurrency,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.maxAttempts:3}") int maxAttempts,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffInitialInterval:1000}") long backOffInitialInterval,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffMaxInterval:10000}") long backOffMaxInterval,
+            @Value("${spring.cloud.stream.bindings.messageProcessor-in-0.consumer.backOffMultiplier:2.0}") double backOffMultiplier,
+            @Value("${app.messageProcessor.dedup.windowSize:100000}") int dedupWindowSize,
+            @Value("${app.messageProcessor.dedup.retentionSeconds:600}") long dedupRetentionSeconds,
+            MeterRegistry meterRegistry) {
         this.reviewService = reviewService;
+        this.streamBridge = streamBridge;
+        this.concurrency = concurrency;
+        this.retryBackOff = new RetryBackOff(maxAttempts, backOffInitialInterval, backOffMaxInterval, backOffMultiplier);
+        this.deduplicator = new EventDeduplicator("messageProcessor", dedupWindowSize, Duration.ofSeconds(dedupRetentionSeconds), meterRegistry);
+        LOG.info("Creates an event deduplicator with windowSize = {}, retention = {}s", dedupWindowSize, dedupRetentionSeconds);
+        this.metrics = new EventConsumerMetrics("messageProcessor", maxAttempts, meterRegistry);
     }
 
     @Bean
     public Consumer<Event<Integer, Review>> messageProcessor() {
-        return event -> {
-            LOG.info("Process message created at {}...", event.getEventCreatedAt());
-            switch (event.getEventType()) {
-                case CREATE -> {
-                    Review review = event.getData();
-                    LOG.info("Create review with ID: {}/{}", review.getProductId(), review.getReviewId());
-                    reviewService.createReview(review).block();
-                }
-                case DELETE -> {
-                    int productId = event.getKey();
-                    LOG.info("Delete reviews with ProductID: {}", productId);
-                    reviewService.deleteReviews(productId).block();
-                }
-                default -> {
-                    String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event";
-                    LOG.warn(errorMessage);
-                    throw new EventProcessingException(errorMessage);
-                }
-            }
+        return event -> processEvent(event).block();
+    }
+
+    /**
+     * Non-blocking alternative to {@link #messageProcessor()}, enabled by the reactive_consumer profile.
+     * Events with the same key are processed in order, events with different keys in parallel.
+     * Retries and dead lettering are done here since the binder does not apply them to reactive functions.
+     * The messages are acknowledged manually once processed, see the reactive_consumer profile.
+     */
+    @Bean
+    public Function<Flux<Message<Event<Integer, Review>>>, Mono<Void>> reactiveMessageProcessor() {
+        LOG.info("Creates a reactive message processor with concurrency = {}", concurrency);
+        KeyOrderedEventProcessor<Integer, Review> processor =
+                new KeyOrderedEventProcessor<>(concurrency, retryBackOff, this::processEvent, this::sendToDlq);
+        return processor::process;
+    }
+
+    /**
+     * Processes the event unless it has already been processed, e.g. a redelivery after a lost ack or a
+     * republished DLQ message that did succeed. The event is only recorded as processed once it succeeds.
+     */
+    private Mono<Void> processEvent(Event<Integer, Review> event) {
+        if (deduplicator.isDuplicate(event.getEventId())) {
+            LOG.info("Drops already processed {} event {} with key {}", event.getEventType(), event.getEventId(), event.getKey());
+            return Mono.empty();
+        }
+        return metrics.record(event, () -> handleEvent(event)).doOnSuccess(v -> {
+            deduplicator.processed(event.getEventId());
             LOG.info("Message processing done!");
+        });
+    }
+
+    private Mono<Void> handleEvent(Event<Integer, Review> event) {
+        LOG.info("Process message created at {}...", event.getEventCreatedAt());
+        return switch (event.getEventType()) {
+            case CREATE -> {
+                Review review = event.getData();
+                LOG.info("Create review with ID: {}/{}", review.getProductId(), review.getReviewId());
+                yield reviewService.createReview(review).then();
+            }
+            case DELETE -> {
+                int productId = event.getKey();
+                LOG.info("Delete reviews with ProductID: {}", productId);
+                yield reviewService.deleteReviews(productId);
+            }
+            default -> {
+                String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE or DELETE event";
+                LOG.warn(errorMessage);
+                throw new EventProcessingException(errorMessage);
+            }
         };
     }
+
+    private void sendToDlq(Message<Event<Integer, Review>> message, Throwable error) {
+        Event<Integer, Review> event = message.getPayload();
+        LOG.warn("Sends {} event with key {} to the DLQ", event.getEventType(), event.getKey());
+        if (!streamBridge.send(DLQ_BINDING, DeadLetterMessages.of(message, error))) {
+            throw new EventProcessingException("Failed to send " + event.getEventType() + " event with key " + event.getKey() + " to the DLQ");
+        }
+    }
 }
\ No newline at end of file
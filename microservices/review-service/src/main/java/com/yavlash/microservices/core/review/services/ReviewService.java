@@ -6,10 +6,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ReviewService {
     Logger LOG = LoggerFactory.getLogger(ReviewControllerImpl.class);
     Review createReview(Review review);
-    List<Review> findReviewsByProductId(int productId);
+    Map<Integer, String> createReviews(List<Review> reviews);
+    List<Review> findReviewsByProductId(int productId, int afterId, int limit, List<String> fields);
+    long countReviewsByProductId(int productId);
+    List<Review> findReviewsByProductIds(List<Integer> productIds);
     void deleteReviewsByProductId(int productId);
 }
\ No newline at end of file
@@ -2,16 +2,23 @@ package com.yavlash.microservices.core.review.services;
 
 import com.yavlash.api.core.review.Review;
 import com.yavlash.api.exceptions.InvalidInputException;
+import com.yavlash.microservices.core.review.persistence.DuplicateKeys;
 import com.yavlash.microservices.core.review.persistence.ReviewEntity;
 import com.yavlash.microservices.core.review.persistence.ReviewRepository;
 import com.yavlash.util.http.ServiceUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
+@Profile("!r2dbc")
 public class ReviewServiceImpl implements ReviewService{
     private final ReviewRepository repository;
     private final ReviewMapper mapper;
@@ -31,20 +38,81 @@ public class ReviewServiceImpl implements ReviewService{
             LOG.debug("createReview: created a review entity: {}/{}", review.getProductId(), review.getReviewId());
             return mapper.entityToApi(newEntity);
         } catch (DataIntegrityViolationException dive) {
-            throw new InvalidInputException("Duplicate key, Product Id: " + review.getProductId() + ", Review Id:" + review.getReviewId());
+            throw new InvalidInputException(integrityError(review, dive));
         }
     }
 
-    public List<Review> findReviewsByProductId(int productId) {
-        List<ReviewEntity> entityList = repository.findByProductId(productId);
+    /**
+     * Creates the reviews in one transaction, inserted with JDBC batches. If the batch fails on a data integrity
+     * violation the reviews are created one by one instead, so only the violating reviews are rejected. A duplicate
+     * of a stored review with the same author, subject and content counts as created, e.g. after a redelivery.
+     *
+     * @return error messages of the reviews rejected as invalid or as duplicates of stored reviews with other content,
+     * keyed by their index in reviews
+     */
+    public Map<Integer, String> createReviews(List<Review> reviews) {
+        List<ReviewEntity> entities = reviews.stream().map(mapper::apiToEntity).collect(Collectors.toList());
+        try {
+            repository.saveAll(entities);
+            LOG.debug("createReviews: created {} review entities", entities.size());
+            return Map.of();
+        } catch (DataIntegrityViolationException dive) {
+            LOG.debug("createReviews: batch of {} reviews failed, falls back to one by one: {}", reviews.size(), dive.toString());
+        }
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < reviews.size(); i++) {
+            try {
+                repository.save(mapper.apiToEntity(reviews.get(i)));
+            } catch (DataIntegrityViolationException dive) {
+                if (!DuplicateKeys.isDuplicateKey(dive) || isConflicting(reviews.get(i))) {
+                    rejected.put(i, integrityError(reviews.get(i), dive));
+                }
+            }
+        }
+        return rejected;
+    }
+
+    private boolean isConflicting(Review review) {
+        boolean conflicting = repository.findByProductIdAndReviewId(review.getProductId(), review.getReviewId())
+                .map(stored -> !(Objects.equals(stored.getAuthor(), review.getAuthor())
+                        && Objects.equals(stored.getSubject(), review.getSubject())
+                        && Objects.equals(stored.getContent(), review.getContent())))
+                .orElse(true);
+        LOG.debug("createReviews: duplicate of {}/{}, conflicting: {}", review.getProductId(), review.getReviewId(), conflicting);
+        return conflicting;
+    }
+
+    private static String integrityError(Review review, DataIntegrityViolationException dive) {
+        if (DuplicateKeys.isDuplicateKey(dive)) {
+            return "Duplicate key, Product Id: " + review.getProductId() + ", Review Id:" + review.getReviewId();
+        }
+        return "Invalid review, Product Id: " + review.getProductId() + ", Review Id:" + review.getReviewId()
+                + ", " + dive.getMostSpecificCause().getMessage();
+    }
+
+    public List<Review> findReviewsByProductId(int productId, int afterId, int limit, List<String> fields) {
+        List<ReviewEntity> entityList = repository.findPage(productId, afterId, limit, fields);
         List<Review> list = mapper.entityListToApiList(entityList);
         list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
         LOG.debug("Response size: {}", list.size());
         return list;
     }
 
+    public long countReviewsByProductId(int productId) {
+        return repository.countByProductId(productId);
+    }
+
+    public List<Review> findReviewsByProductIds(List<Integer> productIds) {
+        List<ReviewEntity> entityList = repository.findByProductIdInOrderByProductIdAscReviewIdAsc(productIds);
+        List<Review> list = mapper.entityListToApiList(entityList);
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+        LOG.debug("Response size: {} for {} products", list.size(), productIds.size());
+        return list;
+    }
+
     public void deleteReviewsByProductId(int productId) {
         LOG.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+        int deleted = repository.deleteByProductId(productId);
+        LOG.debug("deleteReviews: deleted {} reviews for the product with productId: {}", deleted, productId);
     }
 }
\ No newline at end of file
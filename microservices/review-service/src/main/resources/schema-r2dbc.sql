@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS reviews (
+    id INT NOT NULL,
+    version INT NOT NULL,
+    product_id INT NOT NULL,
+    review_id INT NOT NULL,
+    author VARCHAR(255),
+    subject VARCHAR(255),
+    content VARCHAR(255),
+    PRIMARY KEY (id),
+    UNIQUE KEY reviews_unique_idx (product_id, review_id)
+);
+
+CREATE TABLE IF NOT EXISTS hibernate_sequence (
+    next_val BIGINT
+);
+
+INSERT INTO hibernate_sequence (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM hibernate_sequence);
@@ -0,0 +1,41 @@
+package com.yavlash.microservices.core.review;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.yavlash.microservices.core.review.persistence.DuplicateKeys;
+import java.sql.SQLIntegrityConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class DuplicateKeysTests {
+
+    @Test
+    void mysqlDuplicateEntryIsDuplicateKey() {
+        //given
+        DataIntegrityViolationException error = violation(new SQLIntegrityConstraintViolationException(
+                "Duplicate entry '1-1' for key 'reviews.reviews_unique_idx'", "23000", 1062));
+
+        //when && then
+        assertTrue(DuplicateKeys.isDuplicateKey(error));
+    }
+
+    @Test
+    void otherViolationsAreNotDuplicateKeys() {
+        //given
+        DataIntegrityViolationException notNull = violation(new SQLIntegrityConstraintViolationException(
+                "Column 'author' cannot be null", "23000", 1048));
+        DataIntegrityViolationException tooLong = violation(new SQLIntegrityConstraintViolationException(
+                "Data too long for column 'content' at row 1", "22001", 1406));
+
+        //when && then
+        assertFalse(DuplicateKeys.isDuplicateKey(notNull));
+        assertFalse(DuplicateKeys.isDuplicateKey(tooLong));
+    }
+
+    private static DataIntegrityViolationException violation(SQLIntegrityConstraintViolationException cause) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", cause, null));
+    }
+}
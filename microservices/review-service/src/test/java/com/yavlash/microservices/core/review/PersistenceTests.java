@@ -48,6 +48,37 @@ class PersistenceTests extends MySqlTestBase {
         assertEquals(2, repository.count());
     }
 
+    @Test
+    void createInBatch() {
+        //given
+        List<ReviewEntity> newEntities = List.of(
+                new ReviewEntity(1, 3, "a", "s", "c"),
+                new ReviewEntity(1, 4, "a", "s", "c"),
+                new ReviewEntity(2, 1, "a", "s", "c"));
+
+        //when
+        repository.saveAll(newEntities);
+
+        //then
+        assertEquals(4, repository.count());
+        assertEquals(3, newEntities.stream().map(ReviewEntity::getId).distinct().count());
+    }
+
+    @Test
+    void deleteByProductId() {
+        //given
+        repository.save(new ReviewEntity(1, 3, "a", "s", "c"));
+        repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+
+        //when
+        int deleted = repository.deleteByProductId(1);
+
+        //then
+        assertEquals(2, deleted);
+        assertThat(repository.findByProductId(1), hasSize(0));
+        assertThat(repository.findByProductId(2), hasSize(1));
+    }
+
     @Test
     void update() {
         //given && when
@@ -79,6 +110,26 @@ class PersistenceTests extends MySqlTestBase {
         assertEqualsReview(savedEntity, entityList.get(0));
     }
 
+    @Test
+    void findPageAfterId() {
+        //given
+        repository.saveAll(List.of(
+                new ReviewEntity(1, 3, "a", "s", "c"),
+                new ReviewEntity(1, 4, "a", "s", "c"),
+                new ReviewEntity(1, 5, "a", "s", "c")));
+
+        //when
+        List<ReviewEntity> page = repository.findPage(1, 2, 2, List.of("author"));
+
+        //then
+        assertThat(page, hasSize(2));
+        assertEquals(3, page.get(0).getReviewId());
+        assertEquals(4, page.get(1).getReviewId());
+        assertEquals("a", page.get(0).getAuthor());
+        assertNull(page.get(0).getSubject());
+        assertEquals(4, repository.countByProductId(1));
+    }
+
     @Test
     void duplicateError() {
         assertThrows(DataIntegrityViolationException.class, () -> {
@@ -4,6 +4,7 @@ import com.yavlash.api.core.review.Review;
 import com.yavlash.api.event.Event;
 import com.yavlash.api.exceptions.InvalidInputException;
 import com.yavlash.microservices.core.review.persistence.ReviewRepository;
+import com.yavlash.microservices.core.review.services.ReviewService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import static com.yavlash.api.event.Event.Type.CREATE;
@@ -33,6 +37,9 @@ class ReviewServiceApplicationTests extends MySqlTestBase {
     @Autowired
     private ReviewRepository repository;
 
+    @Autowired
+    private ReviewService reviewService;
+
     @Autowired
     @Qualifier("messageProcessor")
     private Consumer<Event<Integer, Review>> messageProcessor;
@@ -59,6 +66,23 @@ class ReviewServiceApplicationTests extends MySqlTestBase {
                 .jsonPath("$[2].reviewId").isEqualTo(3);
     }
 
+    @Test
+    void batchedInsertAcceptsDuplicatesWithTheSameContent() {
+        //given
+        reviewService.createReviews(List.of(new Review(1, 1, "Author 1", "Subject 1", "Content 1", null),
+                new Review(1, 2, "Author 2", "Subject 2", "Content 2", null)));
+
+        //when
+        Map<Integer, String> rejected = reviewService.createReviews(List.of(
+                new Review(1, 1, "Author 1", "Subject 1", "Content 1", null),
+                new Review(1, 2, "Author 2", "Other subject", "Content 2", null),
+                new Review(1, 3, "Author 3", "Subject 3", "Content 3", null)));
+
+        //then
+        assertEquals(Set.of(1), rejected.keySet());
+        assertEquals(3, repository.count());
+    }
+
     @Test
     void duplicateError() {
         //given
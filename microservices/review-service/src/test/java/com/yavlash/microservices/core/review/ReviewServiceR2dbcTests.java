@@ -0,0 +1,97 @@
+package com.yavlash.microservices.core.review;
+
+import com.yavlash.api.core.review.Review;
+import com.yavlash.api.event.Event;
+import com.yavlash.api.exceptions.InvalidInputException;
+import com.yavlash.microservices.core.review.persistence.ReviewReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.function.Consumer;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static com.yavlash.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.cloud.stream.defaultBinder=rabbit",
+        "eureka.client.enabled=false"})
+@ActiveProfiles("r2dbc")
+class ReviewServiceR2dbcTests extends MySqlTestBase {
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReviewReactiveRepository repository;
+
+    @Autowired
+    @Qualifier("messageProcessor")
+    private Consumer<Event<Integer, Review>> messageProcessor;
+
+    @BeforeEach
+    void setupDb() {
+        repository.deleteAll().block();
+    }
+
+    @Test
+    void createGetAndDeleteReviews() {
+        //given
+        int productId = 1;
+
+        //when
+        sendCreateReviewEvent(productId, 1);
+        sendCreateReviewEvent(productId, 2);
+        sendCreateReviewEvent(2, 1);
+
+        //then
+        client.get()
+                .uri("/review?productId=" + productId)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].reviewId").isEqualTo(2);
+        client.get()
+                .uri("/review?productId=" + productId + "&afterId=1&limit=1&fields=author")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].reviewId").isEqualTo(2)
+                .jsonPath("$[0].author").isEqualTo("Author 2")
+                .jsonPath("$[0].subject").doesNotExist();
+        messageProcessor.accept(new Event(DELETE, productId, null));
+        assertEquals(0, repository.findByProductId(productId).count().block());
+        assertEquals(1, repository.findByProductId(2).count().block());
+    }
+
+    @Test
+    void duplicateError() {
+        //given
+        sendCreateReviewEvent(1, 1);
+
+        //when && then
+        InvalidInputException thrown = assertThrows(
+                InvalidInputException.class,
+                () -> sendCreateReviewEvent(1, 1),
+                "Expected a InvalidInputException here!");
+        assertEquals("Duplicate key, Product Id: 1, Review Id:1", thrown.getMessage());
+        assertEquals(1, repository.count().block());
+    }
+
+    private void sendCreateReviewEvent(int productId, int reviewId) {
+        Review review = new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
+        Event<Integer, Review> event = new Event(CREATE, productId, review);
+        messageProcessor.accept(event);
+    }
+}
@@ -0,0 +1,53 @@
+package com.yavlash.util.messaging;
+
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Builds the message sent to the DLQ for a consumed message whose processing failed, the same way as the
+ * binders do when they dead letter a message themselves.
+ * <p>
+ * The headers of the consumed message are kept, among them the partition key, and the exception and the
+ * origin of the message are added: x-exception-message, x-exception-stacktrace and x-original-topic,
+ * x-original-partition, x-original-offset for Kafka or x-original-exchange, x-original-routingKey for Rabbit.
+ * The Kafka message key is kept as well.
+ */
+public final class DeadLetterMessages {
+
+    private DeadLetterMessages() {
+    }
+
+    public static <T> Message<T> of(Message<T> message, Throwable error) {
+        MessageHeaders headers = message.getHeaders();
+        MessageBuilder<T> builder = MessageBuilder.withPayload(message.getPayload())
+                .copyHeaders(headers)
+                .removeHeaders(KafkaHeaders.ACKNOWLEDGMENT, KafkaHeaders.CONSUMER, AmqpHeaders.CHANNEL, AmqpHeaders.DELIVERY_TAG)
+                .setHeader("x-exception-message", String.valueOf(error.getMessage()))
+                .setHeader("x-exception-stacktrace", stackTrace(error));
+        if (headers.containsKey(KafkaHeaders.RECEIVED_TOPIC)) {
+            builder.setHeader("x-original-topic", String.valueOf(headers.get(KafkaHeaders.RECEIVED_TOPIC)))
+                    .setHeader("x-original-partition", String.valueOf(headers.get(KafkaHeaders.RECEIVED_PARTITION_ID)))
+                    .setHeader("x-original-offset", String.valueOf(headers.get(KafkaHeaders.OFFSET)));
+            if (headers.get(KafkaHeaders.RECEIVED_MESSAGE_KEY) != null) {
+                builder.setHeader(KafkaHeaders.MESSAGE_KEY, headers.get(KafkaHeaders.RECEIVED_MESSAGE_KEY));
+            }
+        }
+        if (headers.containsKey(AmqpHeaders.RECEIVED_EXCHANGE)) {
+            builder.setHeader("x-original-exchange", headers.get(AmqpHeaders.RECEIVED_EXCHANGE))
+                    .setHeader("x-original-routingKey", headers.get(AmqpHeaders.RECEIVED_ROUTING_KEY));
+        }
+        return builder.build();
+    }
+
+    private static String stackTrace(Throwable error) {
+        StringWriter writer = new StringWriter();
+        error.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
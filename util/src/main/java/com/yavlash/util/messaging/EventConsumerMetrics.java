@@ -0,0 +1,142 @@
+package com.yavlash.util.messaging;
+
+import com.yavlash.api.event.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of a message consumer, all tagged with the binding and the event type:
+ * <ul>
+ * <li>event.consumer.processing: time of each processing attempt, tagged with the outcome (success, failure)</li>
+ * <li>event.consumer.latency: time from the creation of an event to the end of its successful processing</li>
+ * <li>event.consumer.retries: failed attempts that are retried</li>
+ * <li>event.consumer.dead.letters: events whose last attempt failed, which the consumer sends to the DLQ</li>
+ * </ul>
+ * The attempts of an event are followed by its id, the retries are done by the binder or by a
+ * {@link KeyOrderedEventProcessor} with the same maxAttempts. A failure of an event without an id is only
+ * counted by event.consumer.processing.
+ * <p>
+ * Batch consumers that process several events in one attempt, e.g. with a bulk insert, record the outcome of
+ * each event with {@link #succeeded}, {@link #failed} and {@link #deadLettered}, giving each event its share of
+ * the attempt's time.
+ */
+public class EventConsumerMetrics {
+    private static final int MAX_FAILING_EVENTS = 1000;
+    private final String binding;
+    private final int maxAttempts;
+    private final MeterRegistry meterRegistry;
+    private final Map<UUID, Integer> failedAttempts = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Integer> eldest) {
+            return size() > MAX_FAILING_EVENTS;
+        }
+    };
+
+    public EventConsumerMetrics(String binding, int maxAttempts, MeterRegistry meterRegistry) {
+        this.binding = binding;
+        this.maxAttempts = maxAttempts;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records one processing attempt of the event, the processing is created on subscription so that an
+     * exception thrown while creating it is recorded as a failure too.
+     */
+    public <K, T> Mono<Void> record(Event<K, T> event, Supplier<Mono<Void>> processing) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.defer(processing)
+                    .doOnSuccess(v -> succeeded(event, System.nanoTime() - start))
+                    .doOnError(error -> failed(event, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Records a successful attempt of the event that took elapsedNanos.
+     */
+    public void succeeded(Event<?, ?> event, long elapsedNanos) {
+        String type = type(event);
+        processingTimer(type, "success").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (event.getEventCreatedAt() != null) {
+            long createdAt = event.getEventCreatedAt().toInstant().toEpochMilli();
+            Timer.builder("event.consumer.latency")
+                    .description("Time from the creation of an event to the end of its processing")
+                    .tag("binding", binding)
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(Math.max(0, System.currentTimeMillis() - createdAt), TimeUnit.MILLISECONDS);
+        }
+        if (event.getEventId() != null) {
+            synchronized (failedAttempts) {
+                failedAttempts.remove(event.getEventId());
+            }
+        }
+    }
+
+    /**
+     * Records a failed attempt of the event that took elapsedNanos, counted as a retry until the event has
+     * failed maxAttempts times and as a dead letter then.
+     */
+    public void failed(Event<?, ?> event, long elapsedNanos) {
+        String type = type(event);
+        processingTimer(type, "failure").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (event.getEventId() == null) {
+            return;
+        }
+        int attempts;
+        synchronized (failedAttempts) {
+            attempts = failedAttempts.merge(event.getEventId(), 1, Integer::sum);
+            if (attempts >= maxAttempts) {
+                failedAttempts.remove(event.getEventId());
+            }
+        }
+        if (attempts >= maxAttempts) {
+            counter("event.consumer.dead.letters", "Events sent to the DLQ after their last attempt failed", type).increment();
+        } else {
+            counter("event.consumer.retries", "Failed processing attempts that are retried", type).increment();
+        }
+    }
+
+    /**
+     * Records a failed attempt of the event that is sent to the DLQ without being retried, e.g. an invalid event.
+     */
+    public void deadLettered(Event<?, ?> event, long elapsedNanos) {
+        String type = type(event);
+        processingTimer(type, "failure").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (event.getEventId() != null) {
+            synchronized (failedAttempts) {
+                failedAttempts.remove(event.getEventId());
+            }
+        }
+        counter("event.consumer.dead.letters", "Events sent to the DLQ after their last attempt failed", type).increment();
+    }
+
+    private Timer processingTimer(String type, String outcome) {
+        return Timer.builder("event.consumer.processing")
+                .description("Time of a processing attempt of an event")
+                .tag("binding", binding)
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(String name, String description, String type) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("binding", binding)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static String type(Event<?, ?> event) {
+        return String.valueOf(event.getEventType());
+    }
+}
@@ -0,0 +1,99 @@
+package com.yavlash.util.messaging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the ids of the processed events, so that a redelivered event can be dropped before it reaches
+ * the repository.
+ * <p>
+ * The ids are kept in a Caffeine cache for the retention time after their event was processed, bounded to
+ * windowSize ids. Redeliveries come soon after the first delivery, so the retention is what normally drops
+ * the old ids. Once the bound is reached the cache evicts by its own admission policy, which may keep older ids
+ * over new ones, so windowSize should be above the number of events received within the retention. The cache is
+ * safe to use from all the lanes of a consumer at once.
+ * <p>
+ * The lookups are counted by the "event.dedup" counter tagged with the binding and the result (hit, miss),
+ * the share of hits by the "event.dedup.hit.ratio" gauge.
+ */
+public class EventDeduplicator {
+    private final int windowSize;
+    private final Cache<UUID, Boolean> processedIds;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param windowSize maximum number of processed event ids kept, 0 disables the deduplication
+     * @param retention  time a processed event id is kept
+     */
+    public EventDeduplicator(String binding, int windowSize, Duration retention, MeterRegistry meterRegistry) {
+        this(binding, windowSize, retention, Ticker.systemTicker(), meterRegistry);
+    }
+
+    public EventDeduplicator(String binding, int windowSize, Duration retention, Ticker ticker, MeterRegistry meterRegistry) {
+        this.windowSize = windowSize;
+        this.processedIds = Caffeine.newBuilder()
+                .maximumSize(Math.max(windowSize, 0))
+                .expireAfterWrite(retention)
+                .ticker(ticker)
+                .build();
+        registerCounter("hit", hits, binding, meterRegistry);
+        registerCounter("miss", misses, binding, meterRegistry);
+        Gauge.builder("event.dedup.hit.ratio", this, EventDeduplicator::getHitRatio)
+                .description("Share of the received events dropped as duplicates")
+                .tag("binding", binding)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return windowSize > 0;
+    }
+
+    /**
+     * Returns true if the event with the id has been processed within the retention. Events without an id are
+     * never duplicates.
+     */
+    public boolean isDuplicate(UUID eventId) {
+        if (!isEnabled() || eventId == null) {
+            return false;
+        }
+        if (processedIds.getIfPresent(eventId) != null) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records that the event with the id has been processed, to be called once the processing has succeeded
+     * so that a failed event can still be retried.
+     */
+    public void processed(UUID eventId) {
+        if (!isEnabled() || eventId == null) {
+            return;
+        }
+        processedIds.put(eventId, Boolean.TRUE);
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private static void registerCounter(String result, AtomicLong count, String binding, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("event.dedup", count, AtomicLong::get)
+                .description("Lookups of received events in the processed event ids")
+                .tag("binding", binding)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
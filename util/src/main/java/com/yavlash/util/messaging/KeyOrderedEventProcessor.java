@@ -0,0 +1,67 @@
+package com.yavlash.util.messaging;
+
+import com.yavlash.api.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Processes a stream of event messages with bounded concurrency while keeping the order of events with the
+ * same key.
+ * <p>
+ * Events are spread over a fixed number of lanes by the hash of their key. Each lane processes one event
+ * at a time, in arrival order, and the lanes run in parallel. A failing event is retried according to the
+ * {@link RetryBackOff} and is then handed to the dead letter handler, so it never stops the stream.
+ * <p>
+ * The messages are consumed with manual acknowledgment, each one is only acknowledged once its event has
+ * been processed or dead lettered, so the events in flight are redelivered if the consumer stops. A message
+ * that the dead letter handler fails to send is rejected, see {@link MessageAcknowledger#reject}.
+ */
+public class KeyOrderedEventProcessor<K, T> {
+    private static final Logger LOG = LoggerFactory.getLogger(KeyOrderedEventProcessor.class);
+    private final int concurrency;
+    private final RetryBackOff retryBackOff;
+    private final Function<Event<K, T>, Mono<Void>> handler;
+    private final BiConsumer<Message<Event<K, T>>, Throwable> deadLetterHandler;
+
+    public KeyOrderedEventProcessor(int concurrency, RetryBackOff retryBackOff,
+            Function<Event<K, T>, Mono<Void>> handler,
+            BiConsumer<Message<Event<K, T>>, Throwable> deadLetterHandler) {
+        this.concurrency = concurrency;
+        this.retryBackOff = retryBackOff;
+        this.handler = handler;
+        this.deadLetterHandler = deadLetterHandler;
+    }
+
+    public Mono<Void> process(Flux<Message<Event<K, T>>> messages) {
+        return messages
+                .groupBy(message -> Math.floorMod(Objects.hashCode(message.getPayload().getKey()), concurrency))
+                .flatMap(lane -> lane.concatMap(this::processMessage), concurrency)
+                .then();
+    }
+
+    private Mono<Void> processMessage(Message<Event<K, T>> message) {
+        Event<K, T> event = message.getPayload();
+        return Mono.defer(() -> handler.apply(event))
+                .retryWhen(retryBackOff.toRetry())
+                .doOnSuccess(v -> MessageAcknowledger.acknowledge(message))
+                .onErrorResume(error -> {
+                    LOG.warn("Failed to process {} event with key {} after {} attempts: {}",
+                            event.getEventType(), event.getKey(), retryBackOff.getMaxAttempts(), error.toString());
+                    try {
+                        deadLetterHandler.accept(message, error);
+                        MessageAcknowledger.acknowledge(message);
+                    } catch (RuntimeException e) {
+                        LOG.error("Failed to dead letter {} event with key {}: {}", event.getEventType(), event.getKey(), e.toString());
+                        MessageAcknowledger.reject(message);
+                    }
+                    return Mono.empty();
+                });
+    }
+}
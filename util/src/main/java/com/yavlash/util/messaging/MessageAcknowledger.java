@@ -0,0 +1,63 @@
+package com.yavlash.util.messaging;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+
+import java.io.IOException;
+
+/**
+ * Settles a message consumed with manual acknowledgment, by the Kafka acknowledgment or by the Rabbit channel
+ * and delivery tag in its headers. A message without them, e.g. from the test binder, is left as it is.
+ * <p>
+ * Kafka needs the container to accept out of order acknowledgments (asyncAcks), an offset is only committed
+ * once every earlier offset of its partition has been acknowledged.
+ */
+public final class MessageAcknowledger {
+    private static final Logger LOG = LoggerFactory.getLogger(MessageAcknowledger.class);
+
+    private MessageAcknowledger() {
+    }
+
+    public static void acknowledge(Message<?> message) {
+        Acknowledgment acknowledgment = message.getHeaders().get(KafkaHeaders.ACKNOWLEDGMENT, Acknowledgment.class);
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
+        Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        if (channel != null && deliveryTag != null) {
+            try {
+                synchronized (channel) {
+                    channel.basicAck(deliveryTag, false);
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to ack message with delivery tag {}: {}", deliveryTag, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Gives the message back to the broker when it could not be processed nor dead lettered. Rabbit routes it
+     * to the dead letter exchange of its queue. A Kafka offset is left uncommitted, so the message is consumed
+     * again after a restart or a rebalance.
+     */
+    public static void reject(Message<?> message) {
+        Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
+        Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        if (channel != null && deliveryTag != null) {
+            try {
+                synchronized (channel) {
+                    channel.basicReject(deliveryTag, false);
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to reject message with delivery tag {}: {}", deliveryTag, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.yavlash.util.messaging;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Retry settings of a message consumer, mirroring the maxAttempts and backOff* consumer properties
+ * that the binder applies to non-reactive consumers.
+ */
+public class RetryBackOff {
+    private final int maxAttempts;
+    private final long initialIntervalMs;
+    private final long maxIntervalMs;
+    private final double multiplier;
+
+    public RetryBackOff(int maxAttempts, long initialIntervalMs, long maxIntervalMs, double multiplier) {
+        this.maxAttempts = maxAttempts;
+        this.initialIntervalMs = initialIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.multiplier = multiplier;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Creates a Reactor retry spec that gives up after maxAttempts, i.e. maxAttempts - 1 retries,
+     * and then propagates the last error as is.
+     */
+    public Retry toRetry() {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            long retry = signal.totalRetries();
+            if (retry + 1 >= maxAttempts) {
+                return Mono.error(Exceptions.unwrap(signal.failure()));
+            }
+            long delay = (long) Math.min(initialIntervalMs * Math.pow(multiplier, retry), maxIntervalMs);
+            return Mono.delay(Duration.ofMillis(delay));
+        }));
+    }
+}
@@ -0,0 +1,96 @@
+package com.yavlash.util.messaging;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.event.Event;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Converts {@link Event} payloads to and from Smile, the binary format of Jackson.
+ * <p>
+ * Smile keeps the data model and the Jackson annotations of the JSON format, but writes numbers in binary and
+ * refers back to property names already written, which makes the messages smaller and faster to parse.
+ * Only messages with the application/x-jackson-smile content type are handled, so JSON messages are still
+ * converted by the default converters.
+ */
+public class SmileMessageConverter extends AbstractMessageConverter {
+    public static final MimeType APPLICATION_SMILE = new MimeType("application", "x-jackson-smile");
+    private final ObjectMapper mapper;
+
+    /**
+     * @param mapper an ObjectMapper created with a SmileFactory
+     */
+    public SmileMessageConverter(ObjectMapper mapper) {
+        super(APPLICATION_SMILE);
+        this.mapper = mapper;
+        setStrictContentTypeMatch(true);
+    }
+
+    /**
+     * Collections are supported for batch consumers, which get all payloads of a batch in one message.
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Event.class.isAssignableFrom(clazz) || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, @Nullable Object conversionHint) {
+        JavaType javaType = getJavaType(targetClass, conversionHint);
+        try {
+            if (message.getPayload() instanceof byte[] payload) {
+                return mapper.readValue(payload, javaType);
+            }
+            if (message.getPayload() instanceof Collection<?> payloads && javaType.isCollectionLikeType()) {
+                List<Object> events = new ArrayList<>(payloads.size());
+                for (Object payload : payloads) {
+                    if (!(payload instanceof byte[] bytes)) {
+                        return null;
+                    }
+                    events.add(mapper.readValue(bytes, javaType.getContentType()));
+                }
+                return events;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new MessageConversionException(message, "Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resolves the generic type of the consumer, e.g. Event&lt;Integer, Product&gt;, so the data of the event
+     * is not read as a Map.
+     */
+    private JavaType getJavaType(Class<?> targetClass, @Nullable Object conversionHint) {
+        Type type = targetClass;
+        if (conversionHint instanceof MethodParameter parameter) {
+            type = GenericTypeResolver.resolveType(parameter.getNestedGenericParameterType(), parameter.getContainingClass());
+        } else if (conversionHint instanceof Type hint) {
+            type = hint;
+        }
+        JavaType javaType = mapper.constructType(type);
+        return targetClass.isAssignableFrom(javaType.getRawClass()) ? javaType : mapper.constructType(targetClass);
+    }
+}
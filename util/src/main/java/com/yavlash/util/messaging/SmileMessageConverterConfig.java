@@ -0,0 +1,31 @@
+package com.yavlash.util.messaging;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MessageConverter;
+
+/**
+ * Registers the {@link SmileMessageConverter} with Spring Cloud Stream in all services, so consumers accept
+ * Smile as well as JSON events, and a producer binding can switch with contentType: application/x-jackson-smile.
+ */
+@Configuration
+public class SmileMessageConverterConfig {
+
+    /**
+     * Uses the ObjectMapper settings of the application, but writes timestamps as epoch millis instead of ISO strings.
+     */
+    @Bean
+    public MessageConverter smileMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new SmileMessageConverter(builder
+                .factory(new SmileFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .featuresToDisable(
+                        SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS,
+                        DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .build());
+    }
+}
@@ -0,0 +1,87 @@
+package com.yavlash.util.messaging;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static com.yavlash.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.event.Event;
+import com.yavlash.api.exceptions.EventProcessingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class EventConsumerMetricsTests {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EventConsumerMetrics metrics = new EventConsumerMetrics("messageProcessor", 3, meterRegistry);
+
+    @Test
+    void processedEventIsTimed() {
+        //given
+        Event<Integer, Product> event = new Event<>(CREATE, 1, new Product(1, "name", 1, null));
+
+        //when
+        metrics.record(event, Mono::empty).block();
+
+        //then
+        assertEquals(1, meterRegistry.get("event.consumer.processing")
+                .tags("binding", "messageProcessor", "type", "CREATE", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("event.consumer.latency").tags("type", "CREATE").timer().count());
+    }
+
+    @Test
+    void failedAttemptsAreCountedAsRetriesAndDeadLetter() {
+        //given
+        Event<Integer, Product> event = new Event<>(DELETE, 1, null);
+
+        //when
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(EventProcessingException.class, () -> metrics.record(event, () -> {
+                throw new EventProcessingException("Failed to process");
+            }).block());
+        }
+
+        //then
+        assertEquals(3, meterRegistry.get("event.consumer.processing").tags("type", "DELETE", "outcome", "failure").timer().count());
+        assertEquals(2, meterRegistry.get("event.consumer.retries").tags("type", "DELETE").counter().count());
+        assertEquals(1, meterRegistry.get("event.consumer.dead.letters").tags("type", "DELETE").counter().count());
+        assertEquals(0, meterRegistry.find("event.consumer.latency").timers().size());
+    }
+
+    @Test
+    void retriedEventThatSucceedsIsNotDeadLettered() {
+        //given
+        Event<Integer, Product> event = new Event<>(DELETE, 1, null);
+        metrics.record(event, () -> Mono.error(new EventProcessingException("Failed to process")))
+                .onErrorResume(e -> Mono.empty()).block();
+
+        //when
+        metrics.record(event, Mono::empty).block();
+        metrics.record(event, () -> Mono.error(new EventProcessingException("Failed to process")))
+                .onErrorResume(e -> Mono.empty()).block();
+
+        //then
+        assertEquals(2, meterRegistry.get("event.consumer.retries").counter().count());
+        assertEquals(0, meterRegistry.find("event.consumer.dead.letters").counters().size());
+    }
+
+    @Test
+    void eventsOfABatchAreRecordedOneByOne() {
+        //given
+        Event<Integer, Product> created = new Event<>(CREATE, 1, new Product(1, "name", 1, null));
+        Event<Integer, Product> conflicting = new Event<>(CREATE, 2, new Product(2, "name", 1, null));
+
+        //when
+        metrics.failed(created, 1000);
+        metrics.succeeded(created, 1000);
+        metrics.deadLettered(conflicting, 1000);
+
+        //then
+        assertEquals(1, meterRegistry.get("event.consumer.processing").tags("type", "CREATE", "outcome", "success").timer().count());
+        assertEquals(2, meterRegistry.get("event.consumer.processing").tags("type", "CREATE", "outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("event.consumer.retries").tags("type", "CREATE").counter().count());
+        assertEquals(1, meterRegistry.get("event.consumer.dead.letters").tags("type", "CREATE").counter().count());
+    }
+}
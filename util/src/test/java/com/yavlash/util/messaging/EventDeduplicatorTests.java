@@ -0,0 +1,99 @@
+package com.yavlash.util.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class EventDeduplicatorTests {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void processedEventIsDuplicate() {
+        //given
+        EventDeduplicator deduplicator = deduplicator(10);
+        UUID eventId = UUID.randomUUID();
+
+        //when
+        boolean before = deduplicator.isDuplicate(eventId);
+        deduplicator.processed(eventId);
+        boolean after = deduplicator.isDuplicate(eventId);
+
+        //then
+        assertFalse(before);
+        assertTrue(after);
+        assertFalse(deduplicator.isDuplicate(UUID.randomUUID()));
+        assertFalse(deduplicator.isDuplicate(null));
+        assertEquals(1, count("hit"));
+        assertEquals(2, count("miss"));
+        assertEquals(1.0 / 3, meterRegistry.get("event.dedup.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void eventOutsideTheRetentionIsNotDuplicate() {
+        //given
+        EventDeduplicator deduplicator = deduplicator(10);
+        UUID oldEventId = UUID.randomUUID();
+        UUID recentEventId = UUID.randomUUID();
+
+        //when
+        deduplicator.processed(oldEventId);
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        deduplicator.processed(recentEventId);
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        //then
+        assertFalse(deduplicator.isDuplicate(oldEventId));
+        assertTrue(deduplicator.isDuplicate(recentEventId));
+    }
+
+    @Test
+    void lanesRecordAndLookUpConcurrently() {
+        //given
+        EventDeduplicator deduplicator = deduplicator(10000);
+        List<UUID> eventIds = new ArrayList<>();
+        IntStream.range(0, 4000).forEach(i -> eventIds.add(UUID.randomUUID()));
+
+        //when
+        CompletableFuture.allOf(IntStream.range(0, 4)
+                .mapToObj(lane -> CompletableFuture.runAsync(() ->
+                        eventIds.subList(lane * 1000, (lane + 1) * 1000).forEach(deduplicator::processed)))
+                .toArray(CompletableFuture[]::new)).join();
+
+        //then
+        assertTrue(eventIds.stream().allMatch(deduplicator::isDuplicate));
+    }
+
+    @Test
+    void disabledDeduplicatorLetsEverythingThrough() {
+        //given
+        EventDeduplicator deduplicator = deduplicator(0);
+        UUID eventId = UUID.randomUUID();
+
+        //when
+        deduplicator.processed(eventId);
+
+        //then
+        assertFalse(deduplicator.isEnabled());
+        assertFalse(deduplicator.isDuplicate(eventId));
+    }
+
+    private EventDeduplicator deduplicator(int windowSize) {
+        return new EventDeduplicator("messageProcessor", windowSize, Duration.ofMinutes(10), nanos::get, meterRegistry);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("event.dedup").tag("result", result).functionCounter().count();
+    }
+}
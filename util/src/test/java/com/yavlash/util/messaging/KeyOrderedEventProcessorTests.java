@@ -0,0 +1,124 @@
+package com.yavlash.util.messaging;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static com.yavlash.api.event.Event.Type.DELETE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.event.Event;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class KeyOrderedEventProcessorTests {
+    private final RetryBackOff retryBackOff = new RetryBackOff(3, 10, 20, 2.0);
+
+    @Test
+    void eventsWithSameKeyAreProcessedInOrder() {
+        //given
+        Map<Integer, List<Event.Type>> processed = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        KeyOrderedEventProcessor<Integer, Product> processor = new KeyOrderedEventProcessor<>(4, retryBackOff,
+                event -> Mono.delay(Duration.ofMillis(20))
+                        .doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doOnNext(tick -> processed.computeIfAbsent(event.getKey(), k -> Collections.synchronizedList(new ArrayList<>()))
+                                .add(event.getEventType()))
+                        .doFinally(s -> inFlight.decrementAndGet())
+                        .then(),
+                (event, error) -> {});
+        List<Message<Event<Integer, Product>>> messages = new ArrayList<>();
+        for (int productId = 1; productId <= 4; productId++) {
+            messages.add(message(new Event<>(CREATE, productId, new Product(productId, "name", 1, null))));
+            messages.add(message(new Event<>(DELETE, productId, null)));
+        }
+
+        //when
+        processor.process(Flux.fromIterable(messages)).block();
+
+        //then
+        for (int productId = 1; productId <= 4; productId++) {
+            assertEquals(List.of(CREATE, DELETE), processed.get(productId));
+        }
+        assertTrue(maxInFlight.get() > 1);
+    }
+
+    @Test
+    void failedEventIsRetriedAndDeadLettered() {
+        //given
+        AtomicInteger attempts = new AtomicInteger();
+        List<Message<Event<Integer, Product>>> deadLettered = new ArrayList<>();
+        List<Integer> processed = new ArrayList<>();
+        KeyOrderedEventProcessor<Integer, Product> processor = new KeyOrderedEventProcessor<>(1, retryBackOff,
+                event -> {
+                    if (event.getKey() == 1) {
+                        attempts.incrementAndGet();
+                        return Mono.error(new RuntimeException("Failed to process"));
+                    }
+                    processed.add(event.getKey());
+                    return Mono.empty();
+                },
+                (message, error) -> deadLettered.add(DeadLetterMessages.of(message, error)));
+
+        //when
+        processor.process(Flux.just(message(new Event<>(DELETE, 1, null)), message(new Event<>(DELETE, 2, null)))).block();
+
+        //then
+        assertEquals(3, attempts.get());
+        assertEquals(1, deadLettered.size());
+        Message<Event<Integer, Product>> deadLetter = deadLettered.get(0);
+        assertEquals(1, deadLetter.getPayload().getKey());
+        assertEquals("Failed to process", deadLetter.getHeaders().get("x-exception-message"));
+        assertEquals("products", deadLetter.getHeaders().get("x-original-topic"));
+        assertEquals(1, deadLetter.getHeaders().get("partitionKey"));
+        assertEquals(1, deadLetter.getHeaders().get(KafkaHeaders.MESSAGE_KEY));
+        assertFalse(deadLetter.getHeaders().containsKey(KafkaHeaders.ACKNOWLEDGMENT));
+        assertEquals(List.of(2), processed);
+    }
+
+    @Test
+    void messageIsAcknowledgedOnceItsEventIsProcessed() {
+        //given
+        List<String> steps = Collections.synchronizedList(new ArrayList<>());
+        KeyOrderedEventProcessor<Integer, Product> processor = new KeyOrderedEventProcessor<>(2, retryBackOff,
+                event -> Mono.delay(Duration.ofMillis(20 * event.getKey()))
+                        .doOnNext(tick -> steps.add("processed " + event.getKey()))
+                        .then(),
+                (message, error) -> {});
+        Message<Event<Integer, Product>> slow = MessageBuilder.fromMessage(message(new Event<>(DELETE, 2, null)))
+                .setHeader(KafkaHeaders.ACKNOWLEDGMENT, (Acknowledgment) () -> steps.add("acked 2"))
+                .build();
+        Message<Event<Integer, Product>> fast = MessageBuilder.fromMessage(message(new Event<>(DELETE, 1, null)))
+                .setHeader(KafkaHeaders.ACKNOWLEDGMENT, (Acknowledgment) () -> steps.add("acked 1"))
+                .build();
+
+        //when
+        processor.process(Flux.just(slow, fast)).block();
+
+        //then
+        assertEquals(List.of("processed 1", "acked 1", "processed 2", "acked 2"), steps);
+    }
+
+    private static Message<Event<Integer, Product>> message(Event<Integer, Product> event) {
+        return MessageBuilder.withPayload(event)
+                .setHeader("partitionKey", event.getKey())
+                .setHeader(KafkaHeaders.RECEIVED_TOPIC, "products")
+                .setHeader(KafkaHeaders.RECEIVED_PARTITION_ID, 0)
+                .setHeader(KafkaHeaders.OFFSET, 0L)
+                .setHeader(KafkaHeaders.RECEIVED_MESSAGE_KEY, event.getKey())
+                .build();
+    }
+}
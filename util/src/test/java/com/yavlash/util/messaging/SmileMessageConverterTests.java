@@ -0,0 +1,60 @@
+package com.yavlash.util.messaging;
+
+import static com.yavlash.api.event.Event.Type.CREATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yavlash.api.core.product.Product;
+import com.yavlash.api.event.Event;
+import java.lang.reflect.Type;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+class SmileMessageConverterTests {
+    private final SmartMessageConverter converter = (SmartMessageConverter) new SmileMessageConverterConfig()
+            .smileMessageConverter(new Jackson2ObjectMapperBuilder());
+    private final Type eventType = new TypeReference<Event<Integer, Product>>() {}.getType();
+
+    @Test
+    void eventIsConvertedToSmileAndBack() throws Exception {
+        //given
+        Event<Integer, Product> event = new Event<>(CREATE, 1, new Product(1, "name", 1, null));
+        MessageHeaders headers = new MessageHeaders(Map.of(MessageHeaders.CONTENT_TYPE, SmileMessageConverter.APPLICATION_SMILE));
+
+        //when
+        Message<?> message = converter.toMessage(event, headers);
+        Event<Integer, Product> converted = (Event<Integer, Product>) converter.fromMessage(message, Event.class, eventType);
+
+        //then
+        byte[] json = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(event);
+        assertTrue(((byte[]) message.getPayload()).length < json.length);
+        assertEquals(CREATE, converted.getEventType());
+        assertEquals(1, converted.getKey());
+        assertEquals("name", converted.getData().getName());
+        assertEquals(event.getEventCreatedAt().toInstant().toEpochMilli(), converted.getEventCreatedAt().toInstant().toEpochMilli());
+    }
+
+    @Test
+    void jsonMessageIsLeftToTheJsonConverter() {
+        //given
+        Message<byte[]> message = MessageBuilder.withPayload("{\"eventType\":\"DELETE\",\"key\":1}".getBytes())
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+
+        //when
+        Object converted = ((MessageConverter) converter).fromMessage(message, Event.class);
+
+        //then
+        assertNull(converted);
+    }
+}